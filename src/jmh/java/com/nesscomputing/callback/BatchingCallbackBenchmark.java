@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Items per microsecond through a single {@link BatchingCallback} shared by 1 to 8 producer
+ * threads, with a delegate that only counts. Every operation is one item, so
+ * {@code gc.alloc.rate.norm} is the allocation per item.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BatchingCallbackBenchmark
+{
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int batchSize;
+
+    /**
+     * The queue based default, the same with {@link BatchingCallback#batchIntoPooled} batches, or
+     * {@link BatchingCallback#batchIntoConcurrently} with and without ordering.
+     */
+    @Param({"queue", "pooled", "concurrent", "ordered"})
+    public String engine;
+
+    private final Object item = new Object();
+    private final AtomicLong delivered = new AtomicLong();
+    private BatchingCallback<Object> callback;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        final Callback<List<Object>> out = new Callback<List<Object>>() {
+            @Override
+            public void call(List<Object> batch)
+            {
+                delivered.addAndGet(batch.size());
+            }
+        };
+        switch (engine) {
+        case "pooled":
+            callback = BatchingCallback.batchIntoPooled(batchSize, out);
+            break;
+        case "concurrent":
+            callback = BatchingCallback.batchIntoConcurrently(batchSize, out, false);
+            break;
+        case "ordered":
+            callback = BatchingCallback.batchIntoConcurrently(batchSize, out, true);
+            break;
+        default:
+            callback = BatchingCallback.batchInto(batchSize, out);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+        callback.commit();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void producers1() throws Exception
+    {
+        callback.call(item);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void producers2() throws Exception
+    {
+        callback.call(item);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void producers4() throws Exception
+    {
+        callback.call(item);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void producers8() throws Exception
+    {
+        callback.call(item);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+
+/**
+ * Per item overhead of the callback combinators, against calling the sink directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CallbackBenchmark
+{
+    static final int STREAM_SIZE = 1000;
+
+    private final Integer item = 4711;
+    private final List<Object> items = new ArrayList<>(STREAM_SIZE);
+    private Callback<Object> sink;
+    private Callback<Object> chain1;
+    private Callback<Object> chain4;
+    private Callback<Integer> transformIdentity;
+    private Callback<Integer> transformToString;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(final Blackhole blackhole)
+    {
+        sink = new Callback<Object>() {
+            @Override
+            public void call(Object value)
+            {
+                blackhole.consume(value);
+            }
+        };
+        chain1 = Callbacks.chain(sink);
+        chain4 = Callbacks.chain(sink, sink, sink, sink);
+        transformIdentity = TransformedCallback.transform(sink, Functions.<Integer>identity());
+        transformToString = TransformedCallback.transform(sink, new Function<Integer, String>() {
+            @Override
+            public String apply(Integer value)
+            {
+                return value.toString();
+            }
+        });
+
+        for (int i = 0; i < STREAM_SIZE; i++) {
+            items.add(i);
+        }
+    }
+
+    @Benchmark
+    public void direct() throws Exception
+    {
+        sink.call(item);
+    }
+
+    @Benchmark
+    public void chain1() throws Exception
+    {
+        chain1.call(item);
+    }
+
+    @Benchmark
+    public void chain4() throws Exception
+    {
+        chain4.call(item);
+    }
+
+    @Benchmark
+    public void transformIdentity() throws Exception
+    {
+        transformIdentity.call(item);
+    }
+
+    @Benchmark
+    public void transformToString() throws Exception
+    {
+        transformToString.call(item);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_SIZE)
+    public void stream() throws Exception
+    {
+        Callbacks.stream(sink, items);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time per item to push {@link #ITEMS} items through a batching callback and commit it, i.e.
+ * until every batch has been processed. {@link #fanOut()} hands the batches to a thread pool,
+ * {@link #fanOutBounded()} does the same with a limit on the batches in flight, and
+ * {@link #inline()} calls the delegate on the producer thread for comparison. The delegate
+ * burns {@code workPerItem} JMH CPU tokens per item, 0 is a fast delegate and 100 a slow one.
+ * Fan-out only pays off with at least as many idle cores as {@code poolSize}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ExecutorBatchingCallbackBenchmark
+{
+    static final int ITEMS = 10000;
+
+    @Param({"1", "4", "16"})
+    public int poolSize;
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    @Param({"0", "100"})
+    public int workPerItem;
+
+    private final Object item = new Object();
+    private ExecutorService executor;
+    private Callback<List<Object>> delegate;
+
+    @Setup
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool(poolSize);
+        final long tokens = workPerItem;
+        delegate = new Callback<List<Object>>() {
+            @Override
+            public void call(List<Object> batch)
+            {
+                for (int i = 0; i < batch.size(); i++) {
+                    Blackhole.consumeCPU(tokens);
+                }
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void fanOut() throws Exception
+    {
+        push(BatchingCallback.batchInto(batchSize, executor, delegate, false));
+    }
+
+    /**
+     * Fan-out with at most two batches per pool thread in flight, the producer waits for the rest.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void fanOutBounded() throws Exception
+    {
+        push(BatchingCallback.batchInto(batchSize, executor, delegate, false, 2 * poolSize, Long.MAX_VALUE, TimeUnit.NANOSECONDS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void inline() throws Exception
+    {
+        push(BatchingCallback.batchInto(batchSize, delegate));
+    }
+
+    private void push(BatchingCallback<Object> callback) throws Exception
+    {
+        for (int i = 0; i < ITEMS; i++) {
+            callback.call(item);
+        }
+        callback.commit();
+    }
+}
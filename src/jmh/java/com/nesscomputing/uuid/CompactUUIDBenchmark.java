@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The compact {@link Base64UUID} and {@link Base32UUID} codecs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CompactUUIDBenchmark
+{
+    private UUID [] uuids;
+    private String [] base64Strings;
+    private String [] base32Strings;
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        uuids = UUIDInputs.uuids();
+        base64Strings = new String [uuids.length];
+        base32Strings = new String [uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            base64Strings[i] = Base64UUID.toString(uuids[i]);
+            base32Strings[i] = Base32UUID.toString(uuids[i]);
+        }
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & UUIDInputs.MASK;
+    }
+
+    @Benchmark
+    public String base64ToString()
+    {
+        return Base64UUID.toString(uuids[next()]);
+    }
+
+    @Benchmark
+    public UUID base64FromString()
+    {
+        return Base64UUID.fromString(base64Strings[next()]);
+    }
+
+    @Benchmark
+    public String base32ToString()
+    {
+        return Base32UUID.toString(uuids[next()]);
+    }
+
+    @Benchmark
+    public UUID base32FromString()
+    {
+        return Base32UUID.fromString(base32Strings[next()]);
+    }
+}
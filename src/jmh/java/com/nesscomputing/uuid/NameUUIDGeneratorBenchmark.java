@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Name based UUIDs for short, URL like names: the JDK (a new digest and a copy of the name
+ * every time) against {@link NameUUIDGenerator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NameUUIDGeneratorBenchmark
+{
+    private static final NameUUIDGenerator V3 = NameUUIDGenerator.v3();
+    private static final NameUUIDGenerator V5 = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_URL);
+
+    private final long [] bits = new long [2];
+    private String name;
+
+    @Setup
+    public void setUp()
+    {
+        name = "http://www.example.com/items/" + UUIDInputs.uuids()[0];
+    }
+
+    @Benchmark
+    public UUID jdkV3()
+    {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public UUID v3()
+    {
+        return V3.uuid(name);
+    }
+
+    @Benchmark
+    public UUID v5()
+    {
+        return V5.uuid(name);
+    }
+
+    @Benchmark
+    public long [] v5Bits()
+    {
+        V5.generate(name, bits, 0);
+        return bits;
+    }
+}
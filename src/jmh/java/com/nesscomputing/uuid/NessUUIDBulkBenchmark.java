@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The bulk conversions over parallel arrays, sequential (threshold larger than the input)
+ * and with the default threshold, which only splits the larger input across the shared pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NessUUIDBulkBenchmark
+{
+    @Param({"1024", "65536"})
+    public int size;
+
+    private String [] strings;
+    private long [] msb;
+    private long [] lsb;
+    private String [] out;
+
+    @Setup
+    public void setUp()
+    {
+        final UUID [] uuids = UUIDInputs.uuids();
+        strings = new String [size];
+        msb = new long [size];
+        lsb = new long [size];
+        out = new String [size];
+        for (int i = 0; i < size; i++) {
+            final UUID uuid = uuids[i & UUIDInputs.MASK];
+            strings[i] = uuid.toString();
+            msb[i] = uuid.getMostSignificantBits();
+            lsb[i] = uuid.getLeastSignificantBits();
+        }
+    }
+
+    @Benchmark
+    public long [] fromStringsSequential()
+    {
+        NessUUID.fromStrings(strings, msb, lsb, null, Integer.MAX_VALUE);
+        return msb;
+    }
+
+    @Benchmark
+    public long [] fromStringsDefault()
+    {
+        NessUUID.fromStrings(strings, msb, lsb);
+        return msb;
+    }
+
+    @Benchmark
+    public String [] toStringsSequential()
+    {
+        NessUUID.toStrings(msb, lsb, out, null, Integer.MAX_VALUE);
+        return out;
+    }
+
+    @Benchmark
+    public String [] toStringsDefault()
+    {
+        NessUUID.toStrings(msb, lsb, out);
+        return out;
+    }
+}
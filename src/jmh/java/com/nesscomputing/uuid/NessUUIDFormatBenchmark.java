@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formatting into Strings and caller supplied buffers, against {@link UUID#toString()}.
+ * The buffer variants should not allocate at all, check the {@code gc.alloc.rate.norm} column.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NessUUIDFormatBenchmark
+{
+    private UUID [] uuids;
+    private final char [] chars = new char [36];
+    private final byte [] bytes = new byte [36];
+    private final ByteBuffer directBuffer = ByteBuffer.allocateDirect(36);
+    private final StringBuilder sb = new StringBuilder(36);
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        uuids = UUIDInputs.uuids();
+    }
+
+    private UUID next()
+    {
+        return uuids[index = (index + 1) & UUIDInputs.MASK];
+    }
+
+    @Benchmark
+    public String jdkToString()
+    {
+        return next().toString();
+    }
+
+    @Benchmark
+    public String nessToString()
+    {
+        return NessUUID.toString(next());
+    }
+
+    @Benchmark
+    public String jdkToUpperCaseString()
+    {
+        return next().toString().toUpperCase(Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String nessToUpperCaseString()
+    {
+        return NessUUID.toUpperCaseString(next());
+    }
+
+    @Benchmark
+    public char [] nessWriteTo()
+    {
+        NessUUID.writeTo(next(), chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public byte [] nessWriteAscii()
+    {
+        NessUUID.writeAscii(next(), bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public ByteBuffer nessWriteAsciiDirectBuffer()
+    {
+        directBuffer.clear();
+        return NessUUID.writeAscii(next(), directBuffer);
+    }
+
+    @Benchmark
+    public StringBuilder jdkAppendTo()
+    {
+        sb.setLength(0);
+        return sb.append(next());
+    }
+
+    @Benchmark
+    public StringBuilder nessAppendTo()
+    {
+        sb.setLength(0);
+        return NessUUID.appendTo(next(), sb);
+    }
+}
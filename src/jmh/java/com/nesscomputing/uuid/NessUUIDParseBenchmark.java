@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing from Strings, ASCII byte arrays and direct buffers, against {@link UUID#fromString(String)}.
+ * Methods that throw on bad input catch the exception and return null, so the {@code invalid}
+ * input shape shows what rejecting input costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NessUUIDParseBenchmark
+{
+    @Param({"canonical", "uppercase", "lenient", "invalid"})
+    public String shape;
+
+    private String [] strings;
+    private StringBuilder [] builders;
+    private byte [] bytes;
+    private ByteBuffer directBuffer;
+    private int [] offsets;
+    private int [] lengths;
+    private final long [] bits = new long [2];
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        strings = UUIDInputs.strings(shape, UUIDInputs.uuids());
+        builders = new StringBuilder [strings.length];
+        offsets = new int [strings.length];
+        lengths = new int [strings.length];
+
+        int size = 0;
+        for (int i = 0; i < strings.length; i++) {
+            builders[i] = new StringBuilder(strings[i]);
+            offsets[i] = size;
+            lengths[i] = strings[i].length();
+            size += lengths[i];
+        }
+
+        bytes = new byte [size];
+        for (int i = 0; i < strings.length; i++) {
+            System.arraycopy(strings[i].getBytes(StandardCharsets.US_ASCII), 0, bytes, offsets[i], lengths[i]);
+        }
+        directBuffer = ByteBuffer.allocateDirect(size);
+        directBuffer.put(bytes);
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & UUIDInputs.MASK;
+    }
+
+    // STRINGS
+
+    @Benchmark
+    public UUID jdkFromString()
+    {
+        try {
+            return UUID.fromString(strings[next()]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public UUID nessFromString()
+    {
+        try {
+            return NessUUID.fromString(strings[next()]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public UUID nessTryParse()
+    {
+        return NessUUID.tryParse(strings[next()]);
+    }
+
+    @Benchmark
+    public boolean nessIsValid()
+    {
+        return NessUUID.isValid(strings[next()]);
+    }
+
+    @Benchmark
+    public boolean nessTryParseBits()
+    {
+        final String str = strings[next()];
+        return NessUUID.tryParse(str, 0, str.length(), bits, 0);
+    }
+
+    /**
+     * The CharSequence decoder, {@link CharSequence#charAt(int)} is called on a StringBuilder instead of a String.
+     */
+    @Benchmark
+    public boolean nessTryParseCharSequence()
+    {
+        final StringBuilder sb = builders[next()];
+        return NessUUID.tryParse(sb, 0, sb.length(), bits, 0);
+    }
+
+    // BYTES
+
+    @Benchmark
+    public UUID jdkFromBytes()
+    {
+        final int i = next();
+        try {
+            return UUID.fromString(new String(bytes, offsets[i], lengths[i], StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public UUID nessFromBytes()
+    {
+        final int i = next();
+        try {
+            return NessUUID.fromBytes(bytes, offsets[i], lengths[i]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public boolean nessTryParseBytes()
+    {
+        final int i = next();
+        return NessUUID.tryParse(bytes, offsets[i], lengths[i], bits, 0);
+    }
+
+    @Benchmark
+    public UUID nessFromDirectBuffer()
+    {
+        final int i = next();
+        try {
+            return NessUUID.fromBuffer(directBuffer, offsets[i], lengths[i]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public boolean nessTryParseDirectBuffer()
+    {
+        final int i = next();
+        return NessUUID.tryParse(directBuffer, offsets[i], lengths[i], bits, 0);
+    }
+}
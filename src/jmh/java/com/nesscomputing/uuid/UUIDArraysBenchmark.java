@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorting and searching {@link UUIDArrays} against a {@code UUID[]} with the same unsigned order,
+ * for random (version 4) and time ordered (version 7) UUIDs. Searches hit in half of the cases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UUIDArraysBenchmark
+{
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"v4", "v7"})
+    public String version;
+
+    private long [] msb;
+    private long [] lsb;
+    private UUID [] uuids;
+
+    private long [] sortedMsb;
+    private long [] sortedLsb;
+    private UUID [] sortedUUIDs;
+
+    private UUID [] probes;
+    private long [] probeMsbs;
+    private long [] probeLsbs;
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(42);
+        msb = new long [size];
+        lsb = new long [size];
+        uuids = new UUID [size];
+        final long [] bits = new long [2];
+        for (int i = 0; i < size; i++) {
+            if ("v7".equals(version)) {
+                // about a thousand UUIDs per millisecond, generated by many threads in no particular order
+                final long millis = 1700000000000L + random.nextInt(size / 1000 + 1);
+                bits[0] = millis << 16 | 0x7000L | random.nextInt(0x1000);
+                bits[1] = random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+            }
+            else {
+                final UUID uuid = UUID.randomUUID();
+                bits[0] = uuid.getMostSignificantBits();
+                bits[1] = uuid.getLeastSignificantBits();
+            }
+            msb[i] = bits[0];
+            lsb[i] = bits[1];
+            uuids[i] = new UUID(bits[0], bits[1]);
+        }
+
+        sortedMsb = msb.clone();
+        sortedLsb = lsb.clone();
+        UUIDArrays.sort(sortedMsb, sortedLsb);
+        sortedUUIDs = uuids.clone();
+        Arrays.sort(sortedUUIDs, UUIDArrays.UNSIGNED_ORDER);
+
+        probes = new UUID [PROBES];
+        probeMsbs = new long [PROBES];
+        probeLsbs = new long [PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            final UUID uuid = uuids[random.nextInt(size)];
+            // a miss next to an existing UUID, so that the search has to go all the way down
+            probes[i] = random.nextBoolean() ? uuid : new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits() ^ 1);
+            probeMsbs[i] = probes[i].getMostSignificantBits();
+            probeLsbs[i] = probes[i].getLeastSignificantBits();
+        }
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & (PROBES - 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long [] radixSort()
+    {
+        final long [] m = msb.clone();
+        final long [] l = lsb.clone();
+        UUIDArrays.sort(m, l, 0, m.length);
+        return m;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public UUID [] uuidArraySort()
+    {
+        final UUID [] u = uuids.clone();
+        Arrays.sort(u, UUIDArrays.UNSIGNED_ORDER);
+        return u;
+    }
+
+    @Benchmark
+    public int binarySearch()
+    {
+        final int i = next();
+        return UUIDArrays.binarySearch(sortedMsb, sortedLsb, probeMsbs[i], probeLsbs[i]);
+    }
+
+    @Benchmark
+    public int interpolationSearch()
+    {
+        final int i = next();
+        return UUIDArrays.interpolationSearch(sortedMsb, sortedLsb, probeMsbs[i], probeLsbs[i]);
+    }
+
+    @Benchmark
+    public int uuidArrayBinarySearch()
+    {
+        return Arrays.binarySearch(sortedUUIDs, probes[next()], UUIDArrays.UNSIGNED_ORDER);
+    }
+}
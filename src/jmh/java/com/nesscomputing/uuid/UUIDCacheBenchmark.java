@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link UUIDCache} lookups of a hot set that fits the cache, against parsing and formatting
+ * without it. The strings are copies, so every lookup has to look at the text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UUIDCacheBenchmark
+{
+    @Param({"canonical", "uppercase"})
+    public String shape;
+
+    private final UUIDCache cache = new UUIDCache(2 * UUIDInputs.SIZE);
+    private UUID [] uuids;
+    private String [] strings;
+
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        int index;
+
+        int next()
+        {
+            return index = (index + 1) & UUIDInputs.MASK;
+        }
+    }
+
+    @Setup
+    public void setUp()
+    {
+        uuids = UUIDInputs.uuids();
+        strings = UUIDInputs.strings(shape, uuids);
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(strings[i].toCharArray());
+            cache.fromString(strings[i]);
+        }
+    }
+
+    @Benchmark
+    public UUID nessFromString(Cursor cursor)
+    {
+        return NessUUID.fromString(strings[cursor.next()]);
+    }
+
+    @Benchmark
+    public UUID cacheFromString(Cursor cursor)
+    {
+        return cache.fromString(strings[cursor.next()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID cacheFromString4Threads(Cursor cursor)
+    {
+        return cache.fromString(strings[cursor.next()]);
+    }
+
+    @Benchmark
+    public String nessToString(Cursor cursor)
+    {
+        return NessUUID.toString(uuids[cursor.next()]);
+    }
+
+    @Benchmark
+    public String cacheToString(Cursor cursor)
+    {
+        return cache.toString(uuids[cursor.next()]);
+    }
+}
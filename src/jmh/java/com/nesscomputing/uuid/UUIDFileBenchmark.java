@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a list of UUIDs into parallel arrays, from newline delimited text against the
+ * binary {@link UUIDFile} format. The files stay in the page cache, so this measures the
+ * decoding and not the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UUIDFileBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    private Path text;
+    private Path binary;
+    private long [] msb;
+    private long [] lsb;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        final Random random = new Random(42);
+        msb = new long [size];
+        lsb = new long [size];
+        text = Files.createTempFile("uuids", ".txt");
+        binary = Files.createTempFile("uuids", ".bin");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(text, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < size; i++) {
+                msb[i] = random.nextLong();
+                lsb[i] = random.nextLong();
+                writer.write(NessUUID.toString(msb[i], lsb[i]));
+                writer.write('\n');
+            }
+        }
+        UUIDFile.write(binary, msb, lsb);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.delete(text);
+        Files.delete(binary);
+    }
+
+    @Benchmark
+    public long [] parseText() throws IOException
+    {
+        final long [] bits = new long [2];
+        try (BufferedReader reader = Files.newBufferedReader(text, StandardCharsets.US_ASCII)) {
+            int i = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                NessUUID.parse(line, bits, 0);
+                msb[i] = bits[0];
+                lsb[i] = bits[1];
+                i++;
+            }
+        }
+        return msb;
+    }
+
+    @Benchmark
+    public long [] streamBinary() throws Exception
+    {
+        UUIDFile.stream(binary, new UUIDBitsCallback() {
+            private int i;
+
+            @Override
+            public void call(long m, long l)
+            {
+                msb[i] = m;
+                lsb[i] = l;
+                i++;
+            }
+        });
+        return msb;
+    }
+
+    @Benchmark
+    public long [] mapBinary() throws IOException
+    {
+        final MappedUUIDFile file = MappedUUIDFile.open(binary);
+        file.copyTo(0, msb, lsb, 0, (int) file.size());
+        return msb;
+    }
+}
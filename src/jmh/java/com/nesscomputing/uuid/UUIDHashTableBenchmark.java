@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups in {@link UUIDSet} and {@link UUIDLongMap} against the {@code java.util} collections,
+ * half of them for keys that are present.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UUIDHashTableBenchmark
+{
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private final Set<UUID> hashSet = new HashSet<>();
+    private final Map<UUID, Long> hashMap = new HashMap<>();
+    private UUIDSet uuidSet;
+    private UUIDLongMap uuidLongMap;
+    private UUID [] probes;
+    private long [] probeMsbs;
+    private long [] probeLsbs;
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(42);
+        uuidSet = new UUIDSet(size);
+        uuidLongMap = new UUIDLongMap(size, -1L);
+        final UUID [] keys = new UUID [size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+            hashSet.add(keys[i]);
+            hashMap.put(keys[i], (long) i);
+            uuidSet.add(keys[i]);
+            uuidLongMap.put(keys[i], i);
+        }
+
+        probes = new UUID [PROBES];
+        probeMsbs = new long [PROBES];
+        probeLsbs = new long [PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = random.nextBoolean() ? keys[random.nextInt(size)] : new UUID(random.nextLong(), random.nextLong());
+            probeMsbs[i] = probes[i].getMostSignificantBits();
+            probeLsbs[i] = probes[i].getLeastSignificantBits();
+        }
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & (PROBES - 1);
+    }
+
+    @Benchmark
+    public boolean hashSetContains()
+    {
+        return hashSet.contains(probes[next()]);
+    }
+
+    @Benchmark
+    public boolean uuidSetContains()
+    {
+        final int i = next();
+        return uuidSet.contains(probeMsbs[i], probeLsbs[i]);
+    }
+
+    @Benchmark
+    public Long hashMapGet()
+    {
+        return hashMap.get(probes[next()]);
+    }
+
+    @Benchmark
+    public long uuidLongMapGet()
+    {
+        final int i = next();
+        return uuidLongMap.get(probeMsbs[i], probeLsbs[i]);
+    }
+}
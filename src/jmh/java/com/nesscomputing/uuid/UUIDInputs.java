@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Reproducible benchmark inputs. Every set holds {@link #SIZE} entries, so benchmarks cycle
+ * through them with {@code (i + 1) & MASK} instead of a modulo.
+ */
+final class UUIDInputs
+{
+    private UUIDInputs() {}
+
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    static UUID [] uuids()
+    {
+        final Random random = new Random(42);
+        final UUID [] uuids = new UUID [SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        return uuids;
+    }
+
+    /**
+     * Returns the string form of every UUID in one of these shapes:
+     * <ul>
+     * <li>{@code canonical}: what {@link UUID#toString()} returns.</li>
+     * <li>{@code uppercase}: canonical with upper case hex digits.</li>
+     * <li>{@code lenient}: leading zeros of every field dropped, still accepted by {@link UUID#fromString(String)}.</li>
+     * <li>{@code invalid}: canonical with one hex digit replaced by {@code g}.</li>
+     * </ul>
+     */
+    static String [] strings(String shape, UUID [] uuids)
+    {
+        final Random random = new Random(4711);
+        final String [] strings = new String [uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            final UUID uuid = uuids[i];
+            switch (shape) {
+            case "canonical":
+                strings[i] = uuid.toString();
+                break;
+            case "uppercase":
+                strings[i] = uuid.toString().toUpperCase(Locale.ENGLISH);
+                break;
+            case "lenient":
+                strings[i] = lenient(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                break;
+            case "invalid":
+                final char [] chars = uuid.toString().toCharArray();
+                int position;
+                do {
+                    position = random.nextInt(chars.length);
+                } while (chars[position] == '-');
+                chars[position] = 'g';
+                strings[i] = new String(chars);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown input shape " + shape);
+            }
+        }
+        return strings;
+    }
+
+    private static String lenient(long msb, long lsb)
+    {
+        return Long.toHexString(msb >>> 32) + "-"
+             + Long.toHexString((msb >>> 16) & 0xffff) + "-"
+             + Long.toHexString(msb & 0xffff) + "-"
+             + Long.toHexString(lsb >>> 48) + "-"
+             + Long.toHexString(lsb & 0xffffffffffffL);
+    }
+}
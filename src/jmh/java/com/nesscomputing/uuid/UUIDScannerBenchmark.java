@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extracting UUIDs from log like text, with {@link UUIDScanner} against a regular expression.
+ * Every line is about 120 characters, and {@code uuidsPerLine} of them hold an UUID.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UUIDScannerBenchmark
+{
+    private static final Pattern PATTERN = Pattern.compile(
+        "(?<![0-9a-fA-F])[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(?![0-9a-fA-F])");
+
+    @Param({"16"})
+    public int megabytes;
+
+    @Param({"0.1", "1"})
+    public double uuidsPerLine;
+
+    private String text;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(42);
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() < megabytes << 20) {
+            builder.append("2013-04-01 12:00:00,000 INFO  [http-worker-").append(random.nextInt(100)).append("] c.n.s.RequestLog: ");
+            if (random.nextDouble() < uuidsPerLine) {
+                builder.append("user=").append(new UUID(random.nextLong(), random.nextLong())).append(' ');
+            }
+            builder.append("GET /api/v2/items?page=").append(random.nextInt(1000)).append(" 200 0x").append(Integer.toHexString(random.nextInt())).append('\n');
+        }
+        text = builder.toString();
+        bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public long regex()
+    {
+        long sum = 0;
+        final Matcher matcher = PATTERN.matcher(text);
+        while (matcher.find()) {
+            sum += UUID.fromString(matcher.group()).getLeastSignificantBits();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scanChars() throws Exception
+    {
+        final Sum sum = new Sum();
+        UUIDScanner.scan(text, sum);
+        return sum.sum;
+    }
+
+    @Benchmark
+    public long scanBytes() throws Exception
+    {
+        final Sum sum = new Sum();
+        UUIDScanner.scan(bytes, sum);
+        return sum.sum;
+    }
+
+    private static class Sum implements UUIDScanner.MatchCallback
+    {
+        long sum;
+
+        @Override
+        public void call(long offset, long msb, long lsb)
+        {
+            sum += lsb;
+        }
+    }
+}
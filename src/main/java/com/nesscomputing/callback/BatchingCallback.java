@@ -17,10 +17,13 @@ package com.nesscomputing.callback;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Throwables;
 
@@ -43,6 +46,15 @@ public class BatchingCallback<T> implements Callback<T>, Closeable
     private final int size;
 
     BatchingCallback(int size, Callback<? super List<T>> out)
+    {
+        this(size, out, true);
+    }
+
+    /**
+     * @param queued false for subclasses that buffer items themselves and override {@link #call(Object)} and
+     *               {@link #commitInternal()}.
+     */
+    BatchingCallback(int size, Callback<? super List<T>> out, boolean queued)
     {
         if (size <= 0) {
             throw new IllegalArgumentException("Size must be positive, was " + size);
@@ -51,7 +63,7 @@ public class BatchingCallback<T> implements Callback<T>, Closeable
             throw new IllegalArgumentException("Null callback");
         }
         this.size = size;
-        list = new ArrayBlockingQueue<>(size);
+        list = queued ? new ArrayBlockingQueue<T>(size) : null;
         this.out = out;
     }
 
@@ -64,6 +76,58 @@ public class BatchingCallback<T> implements Callback<T>, Closeable
         return new BatchingCallback<T>(size, out);
     }
 
+    /**
+     * Collect {@code <T>} into a buffer, and invoke the given callback whenever the buffer holds {@code size}
+     * items or the weights of the buffered items add up to {@code maxWeight}, during an explicit commit, or on
+     * close. An item that would push a batch over {@code maxWeight} starts the next batch instead, so batches
+     * only weigh more than that if a single item does. {@link Weighers#byteArrayLength()} and
+     * {@link Weighers#byteBufferRemaining()} limit batches to a number of bytes.
+     */
+    public static <T> BatchingCallback<T> batchInto(int size, long maxWeight, Weigher<? super T> weigher, Callback<? super List<T>> out)
+    {
+        return new WeighingBatchingCallback<T>(size, maxWeight, weigher, out);
+    }
+
+    /**
+     * Collect {@code <T>} into a buffer, and invoke the given callback whenever the buffer is full, during
+     * an explicit commit, on close, or when the oldest buffered item has waited for {@code maxLinger}.
+     * Late batches are delivered by a task on the {@code scheduler}, which can be shared by many callbacks;
+     * only one batch is delivered at a time. If the callback throws from a scheduled flush, the exception is
+     * rethrown by the next {@link #call(Object)} or {@link #commit()}, and all further items are refused.
+     */
+    public static <T> BatchingCallback<T> batchInto(int size, long maxLinger, TimeUnit unit, ScheduledExecutorService scheduler, Callback<? super List<T>> out)
+    {
+        return new LingeringBatchingCallback<T>(size, unit.toNanos(maxLinger), scheduler, out);
+    }
+
+    /**
+     * Collect {@code <T>} into a buffer, and invoke the given callback whenever the buffer is full, during an
+     * explicit commit, or on close, like {@link #batchInto(int, Callback)}. The batches are {@link PooledBatch}
+     * lists whose arrays are reused, so batching does not allocate anything per batch. The callback must not keep
+     * a batch after it returns, unless it calls {@link PooledBatch#retain()} and later {@link PooledBatch#release()}.
+     * Any {@code Callback<List<T>>} that does not hold on to its lists can be used as is.
+     */
+    public static <T> BatchingCallback<T> batchIntoPooled(int size, Callback<? super PooledBatch<T>> out)
+    {
+        return new PooledBatchingCallback<T>(size, out);
+    }
+
+    /**
+     * Collect {@code <T>} into a buffer that many threads can add to without taking a lock, and invoke the
+     * given callback whenever the buffer is full, during an explicit commit, or on close. Every batch is
+     * delivered by exactly one thread, the one that completes it.
+     *
+     * <p> If {@code ordered} is false, batches may be delivered concurrently and out of order, e.g. the next
+     * batch may be delivered while the thread that completes the previous one is still adding its item.
+     * If it is true, batches are delivered one at a time, in the order in which their items were added;
+     * a thread that completes a batch before the previous one was delivered leaves it to the thread that
+     * delivers the previous one. Batches are fixed size lists.
+     */
+    public static <T> BatchingCallback<T> batchIntoConcurrently(int size, Callback<? super List<T>> out, boolean ordered)
+    {
+        return new ConcurrentBatchingCallback<T>(size, out, ordered);
+    }
+
     /**
      * Collect {@code <T>} into a buffer, and schedule the given callback with the given executor
      * whenever the buffer is full.  If failFast is false and any exceptions are thrown, a
@@ -76,6 +140,24 @@ public class BatchingCallback<T> implements Callback<T>, Closeable
         return new ExecutorBatchingCallback<T>(size, executor, out, failFast);
     }
 
+    /**
+     * Like {@link #batchInto(int, ExecutorService, Callback, boolean)}, but with at most {@code maxInFlight} batches
+     * submitted and not yet processed. A producer that fills another batch waits up to {@code maxWait} for one of
+     * them to finish, and gets a {@link CallbackRefusedException} if none does; the buffered items stay queued
+     * then, only the item being offered is refused. A
+     * {@code maxWait} of 0 refuses right away, {@code Long.MAX_VALUE} waits as long as it takes.
+     * {@link ExecutorBatchingCallback#getBlockedTime(TimeUnit)} tells how long producers waited.
+     */
+    public static <T> ExecutorBatchingCallback<T> batchInto(int size, ExecutorService executor, Callback<? super List<T>> out, boolean failFast,
+                                                           int maxInFlight, long maxWait, TimeUnit unit)
+    {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximum batches in flight must be positive, was " + maxInFlight);
+        }
+        // saturates, so Long.MAX_VALUE in any unit waits forever
+        return new ExecutorBatchingCallback<T>(size, executor, out, failFast, maxInFlight, unit.toNanos(maxWait));
+    }
+
     /**
      * Add an item to the buffer.  May cause a commit if the buffer is full.
      * @throws CallbackRefusedException if the delegate throws.
@@ -116,17 +198,43 @@ public class BatchingCallback<T> implements Callback<T>, Closeable
         return out;
     }
 
-    private void commitInternal() throws CallbackRefusedException
+    void commitInternal() throws CallbackRefusedException
     {
         final List<T> outList = new ArrayList<T>(size);
         list.drainTo(outList);
         if (!outList.isEmpty()) {
-            try {
-                out.call(outList);
-            } catch (final Exception e) {
-                Throwables.propagateIfInstanceOf(e, CallbackRefusedException.class);
-                throw Throwables.propagate(e);
-            }
+            deliver(outList);
+        }
+    }
+
+    /**
+     * Returns true if there are buffered items.
+     */
+    boolean isBuffered()
+    {
+        return !list.isEmpty();
+    }
+
+    /**
+     * Move the buffered items to {@code batch}.
+     * @return the number of items moved.
+     */
+    int drainTo(Collection<? super T> batch)
+    {
+        return list.drainTo(batch);
+    }
+
+    /**
+     * Hand a batch to the delegate.
+     * @throws CallbackRefusedException if the delegate throws.
+     */
+    void deliver(List<T> batch) throws CallbackRefusedException
+    {
+        try {
+            out.call(batch);
+        } catch (final Exception e) {
+            Throwables.propagateIfInstanceOf(e, CallbackRefusedException.class);
+            throw Throwables.propagate(e);
         }
     }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link BatchingCallback} for many producer threads. Instead of a queue with a lock, the
+ * current batch is an array of slots:
+ * <ul>
+ * <li>a producer claims the next slot with a single atomic increment and stores its item,</li>
+ * <li>the producer that claims the last slot replaces the current batch with an empty one,
+ * producers that claim past the end wait for that and try the new batch,</li>
+ * <li>every producer counts its store, the one that completes the count delivers the batch.</li>
+ * </ul>
+ * A commit seals the current batch by claiming all remaining slots at once, and counts them as
+ * stored, so the batch is delivered with the items of the producers that got a slot before.
+ *
+ * <p> For ordered delivery, completed batches are put into a map by sequence number, and the
+ * thread that holds the delivery lock hands them to the delegate in order. A thread that finds
+ * the lock held leaves its batch to the holder instead of waiting.
+ *
+ * <p> Producers only contend on the claim counter, and a full batch is drained by exactly one
+ * thread instead of every producer that finds the queue full.
+ */
+class ConcurrentBatchingCallback<T> extends BatchingCallback<T>
+{
+    private final int size;
+    private final boolean ordered;
+    private final AtomicReference<Batch> current;
+
+    /** Completed batches by sequence number, for ordered delivery. */
+    private final ConcurrentMap<Long, Batch> ready = new ConcurrentHashMap<>();
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    /** The sequence number of the next batch to deliver. Written with the delivery lock held. */
+    private volatile long nextDelivery;
+
+    ConcurrentBatchingCallback(int size, Callback<? super List<T>> out, boolean ordered)
+    {
+        super(size, out, false);
+        if (size > Integer.MAX_VALUE / 2) {
+            // sealing adds size to a counter that may already be past the end
+            throw new IllegalArgumentException("Size must be at most " + Integer.MAX_VALUE / 2 + ", was " + size);
+        }
+        this.size = size;
+        this.ordered = ordered;
+        this.current = new AtomicReference<>(new Batch(0, size));
+    }
+
+    @Override
+    public void call(T item) throws CallbackRefusedException
+    {
+        while (true) {
+            final Batch batch = current.get();
+            final int slot = batch.claimed.getAndIncrement();
+            if (slot < size) {
+                if (slot == size - 1) {
+                    current.set(new Batch(batch.sequence + 1, size));
+                }
+                batch.items[slot] = item;
+                if (batch.stored.incrementAndGet() == size) {
+                    flush(batch);
+                }
+                return;
+            }
+
+            // The batch is full or sealed, and the thread that did it is about to replace it.
+            while (current.get() == batch) {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    void commitInternal() throws CallbackRefusedException
+    {
+        final Batch batch = current.get();
+        // A full batch is delivered by the producer that completes it.
+        if (batch.claimed.get() > 0) {
+            final int claimed = batch.claimed.getAndAdd(size);
+            if (claimed < size) {
+                current.set(new Batch(batch.sequence + 1, size));
+                batch.length = claimed;
+                if (batch.stored.addAndGet(size - claimed) == size) {
+                    flush(batch);
+                }
+            }
+        }
+
+        if (ordered) {
+            // also picks up batches left behind by a delivery that threw
+            deliverReady();
+        }
+    }
+
+    private void flush(Batch batch) throws CallbackRefusedException
+    {
+        if (!ordered) {
+            if (batch.length > 0) {
+                deliver(batch.<T>toList());
+            }
+            return;
+        }
+
+        ready.put(batch.sequence, batch);
+        deliverReady();
+    }
+
+    /**
+     * Deliver the ready batches in order, unless another thread is already doing that. Completing a batch
+     * never waits for an earlier one: the thread that delivers the earlier one delivers this one as well.
+     */
+    private void deliverReady() throws CallbackRefusedException
+    {
+        // Recheck after unlocking, a batch may have become ready after the last look but before the unlock.
+        while (ready.containsKey(nextDelivery) && deliveryLock.tryLock()) {
+            try {
+                Batch batch;
+                while ((batch = ready.remove(nextDelivery)) != null) {
+                    nextDelivery++;
+                    if (batch.length > 0) {
+                        deliver(batch.<T>toList());
+                    }
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
+        }
+    }
+
+    private static class Batch
+    {
+        final long sequence;
+        final Object [] items;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicInteger stored = new AtomicInteger();
+
+        /** Number of items, set before a sealed batch is counted as stored. */
+        volatile int length;
+
+        Batch(long sequence, int size)
+        {
+            this.sequence = sequence;
+            this.items = new Object [size];
+            this.length = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> toList()
+        {
+            return (List<T>) Arrays.asList(length == items.length ? items : Arrays.copyOf(items, length));
+        }
+    }
+}
@@ -15,28 +15,114 @@
  */
 package com.nesscomputing.callback;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
-
-class ExecutorBatchingCallback<T> extends BatchingCallback<T>
+/**
+ * A {@link BatchingCallback} that hands every batch to an executor. It can limit the number of batches in
+ * flight, i.e. submitted but not processed yet, so a slow delegate can not pile up batches in the executor's
+ * queue; a producer that would exceed the limit waits for a batch to finish, for up to a maximum time, and
+ * gets a {@link CallbackRefusedException} if none does. The buffered items are only taken out of the buffer once
+ * there is room for them, so a refused producer does not lose any of them. The waiting is counted, see
+ * {@link #getBlockedTime(TimeUnit)}.
+ */
+public class ExecutorBatchingCallback<T> extends BatchingCallback<T>
 {
+    private final ExecutorCallback<T> callback;
+
     ExecutorBatchingCallback(int size, ExecutorService executor, Callback<? super List<T>> out, boolean failFast)
     {
-        super(size, new ExecutorCallback<>(executor, out, failFast));
+        this(size, executor, out, failFast, 0, 0);
+    }
+
+    /**
+     * @param maxInFlight the maximum number of batches in flight, or 0 for no limit.
+     * @param maxWaitNanos how long to wait for a batch to finish, {@code Long.MAX_VALUE} to wait forever.
+     */
+    ExecutorBatchingCallback(int size, ExecutorService executor, Callback<? super List<T>> out, boolean failFast, int maxInFlight, long maxWaitNanos)
+    {
+        this(size, new ExecutorCallback<T>(executor, out, failFast, maxInFlight, maxWaitNanos));
+    }
+
+    private ExecutorBatchingCallback(int size, ExecutorCallback<T> callback)
+    {
+        super(size, callback);
+        this.callback = callback;
+    }
+
+    /**
+     * Returns the number of batches that were submitted and are not processed yet.
+     */
+    public long getInFlight()
+    {
+        return executorCallback().outstanding.get();
+    }
+
+    /**
+     * Returns the total time producers waited because too many batches were in flight.
+     */
+    public long getBlockedTime(TimeUnit unit)
+    {
+        return unit.convert(executorCallback().blockedNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how many batches had to wait because too many batches were in flight.
+     */
+    public long getBlockedCount()
+    {
+        return executorCallback().blockedCount.get();
+    }
+
+    /**
+     * Returns how many batches were refused because none of the batches in flight finished in time.
+     */
+    public long getRefusedCount()
+    {
+        return executorCallback().refusedCount.get();
+    }
+
+    private ExecutorCallback<T> executorCallback()
+    {
+        return callback;
+    }
+
+    /**
+     * Waits for room before draining the buffer: a refusal leaves the buffered items queued.
+     */
+    @Override
+    void commitInternal() throws CallbackRefusedException
+    {
+        if (!isBuffered()) {
+            return;
+        }
+
+        final ExecutorCallback<T> callback = executorCallback();
+        callback.acquirePermit();
+        final List<T> batch = new ArrayList<T>();
+        if (drainTo(batch) == 0) {
+            // another producer took the items
+            callback.releasePermit();
+            return;
+        }
+        deliver(batch);
     }
 
     @Override
     public boolean commit()
     {
         boolean result = super.commit();
-        ExecutorCallback.class.cast(getOut()).close();
+        executorCallback().close();
         return result;
     }
 
@@ -49,22 +135,48 @@ class ExecutorBatchingCallback<T> extends BatchingCallback<T>
         private final AtomicBoolean failed = new AtomicBoolean();
         private final boolean failFast;
 
-        ExecutorCallback(ExecutorService executor, Callback<? super List<T>> out, boolean failFast)
+        /** Null if the batches in flight are not limited. */
+        private final Semaphore permits;
+        private final long maxWaitNanos;
+
+        final AtomicLong outstanding = new AtomicLong();
+        final AtomicLong blockedNanos = new AtomicLong();
+        final AtomicLong blockedCount = new AtomicLong();
+        final AtomicLong refusedCount = new AtomicLong();
+
+        ExecutorCallback(ExecutorService executor, Callback<? super List<T>> out, boolean failFast, int maxInFlight, long maxWaitNanos)
         {
+            if (maxInFlight < 0) {
+                throw new IllegalArgumentException("Maximum batches in flight must not be negative, was " + maxInFlight);
+            }
+            if (maxWaitNanos < 0) {
+                throw new IllegalArgumentException("Maximum wait must not be negative, was " + maxWaitNanos + "ns");
+            }
             this.executor = new ExecutorCompletionService<Void>(executor);
             this.out = out;
             this.failFast = failFast;
+            this.permits = maxInFlight == 0 ? null : new Semaphore(maxInFlight);
+            this.maxWaitNanos = maxWaitNanos;
         }
 
+        /** The caller holds a permit, see {@link #acquirePermit()}. It is given back when the batch is processed. */
         @Override
         public void call(final List<T> item) throws Exception
         {
             if (failed.get()) {
+                releasePermit();
                 throw new CallbackRefusedException();
             }
 
             inFlight.incrementAndGet();
-            executor.submit(new ExecutorCallable<T>(out, item));
+            outstanding.incrementAndGet();
+            try {
+                executor.submit(new ExecutorCallable<T>(out, item, this));
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                finished();
+                throw e;
+            }
 
             Future<Void> f;
             while ( (f = executor.poll()) != null ) {
@@ -83,6 +195,53 @@ class ExecutorBatchingCallback<T> extends BatchingCallback<T>
             }
         }
 
+        /**
+         * Wait until fewer than the maximum number of batches are in flight.
+         * @throws CallbackRefusedException if none finished within the maximum wait, or the thread was interrupted.
+         */
+        void acquirePermit() throws CallbackRefusedException
+        {
+            if (permits == null || permits.tryAcquire()) {
+                return;
+            }
+
+            blockedCount.incrementAndGet();
+            final long start = System.nanoTime();
+            boolean acquired = false;
+            try {
+                if (maxWaitNanos == Long.MAX_VALUE) {
+                    permits.acquire();
+                    acquired = true;
+                } else {
+                    acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+
+            if (!acquired) {
+                refusedCount.incrementAndGet();
+                throw new CallbackRefusedException("%d batches in flight, none finished within %dns", new Object [] { outstanding.get(), maxWaitNanos });
+            }
+        }
+
+        /** Called when a batch was processed or could not be submitted. */
+        void finished()
+        {
+            outstanding.decrementAndGet();
+            releasePermit();
+        }
+
+        /** Gives back a permit that was not used for a batch. */
+        void releasePermit()
+        {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
         public void close()
         {
             while (inFlight.decrementAndGet() >= 0) {
@@ -107,17 +266,23 @@ class ExecutorBatchingCallback<T> extends BatchingCallback<T>
     {
         private final Callback<? super List<T>> out;
         private final List<T> item;
+        private final ExecutorCallback<T> owner;
 
-        ExecutorCallable(Callback<? super List<T>> out, List<T> item)
+        ExecutorCallable(Callback<? super List<T>> out, List<T> item, ExecutorCallback<T> owner)
         {
             this.out = out;
             this.item = item;
+            this.owner = owner;
         }
 
         @Override
         public Void call() throws Exception
         {
-            out.call(item);
+            try {
+                out.call(item);
+            } finally {
+                owner.finished();
+            }
             return null;
         }
     }
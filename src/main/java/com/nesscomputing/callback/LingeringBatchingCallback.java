@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A {@link BatchingCallback} that also flushes a partial batch once its oldest item has been
+ * buffered for the linger time.
+ *
+ * <p> At most one flush task is scheduled at a time. It is armed by the first item that finds
+ * no task armed, so every buffered item has a task due no later than its arrival plus the linger
+ * time. A task that finds that a batch was flushed since it was armed knows that the buffered
+ * items arrived after that flush, and waits for the rest of the linger time of the flush instead.
+ * Flushes are serialized, so batches reach the delegate one at a time and in order. Closing
+ * cancels the armed task, so the scheduler does not keep the callback around.
+ */
+class LingeringBatchingCallback<T> extends BatchingCallback<T>
+{
+    private final long maxLingerNanos;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run()
+        {
+            lingerExpired();
+        }
+    };
+
+    private volatile long lastFlushNanos;
+    private volatile long flushCount;
+    private volatile Exception failure;
+    private volatile ScheduledFuture<?> pending;
+
+    /** Guarded by the atomic {@link #armed} flag. */
+    private long armedFlushCount;
+
+    LingeringBatchingCallback(int size, long maxLingerNanos, ScheduledExecutorService scheduler, Callback<? super List<T>> out)
+    {
+        super(size, out);
+        if (maxLingerNanos <= 0) {
+            throw new IllegalArgumentException("Linger time must be positive, was " + maxLingerNanos + "ns");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("Null scheduler");
+        }
+        this.maxLingerNanos = maxLingerNanos;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void call(T item) throws CallbackRefusedException
+    {
+        checkFailure();
+        super.call(item);
+
+        // Checked after the item was added: an armed task has not started its flush yet, so it will take the item.
+        if (armed.compareAndSet(false, true)) {
+            armedFlushCount = flushCount;
+            try {
+                pending = scheduler.schedule(flushTask, maxLingerNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                armed.set(false);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean commit()
+    {
+        try {
+            checkFailure();
+        } catch (CallbackRefusedException e) {
+            return false;
+        }
+        // An armed task is left alone, items added during the commit may depend on it.
+        return super.commit();
+    }
+
+    /**
+     * Cancel the armed task and flush the buffer. The task is disarmed before the flush, so an item that is
+     * added by another thread after the flush arms a new task, and an item added before is flushed.
+     */
+    @Override
+    public void close()
+    {
+        final ScheduledFuture<?> task = pending;
+        if (task != null) {
+            task.cancel(false);
+        }
+        armed.set(false);
+        super.close();
+    }
+
+    @Override
+    void commitInternal() throws CallbackRefusedException
+    {
+        flushLock.lock();
+        try {
+            lastFlushNanos = System.nanoTime();
+            flushCount++;
+            super.commitInternal();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void lingerExpired()
+    {
+        if (flushCount != armedFlushCount) {
+            final long remaining = lastFlushNanos + maxLingerNanos - System.nanoTime();
+            if (remaining > 0) {
+                armedFlushCount = flushCount;
+                try {
+                    pending = scheduler.schedule(flushTask, remaining, TimeUnit.NANOSECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the scheduler is shutting down, flush early instead
+                }
+            }
+        }
+
+        // Disarm before the flush, items added from now on arm a new task.
+        armed.set(false);
+        try {
+            commitInternal();
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+
+    private void checkFailure() throws CallbackRefusedException
+    {
+        final Exception e = failure;
+        if (e != null) {
+            Throwables.propagateIfInstanceOf(e, CallbackRefusedException.class);
+            throw Throwables.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A batch handed out by {@link BatchingCallback#batchIntoPooled(int, Callback)}. The array behind it is
+ * reused for later batches, so a delegate must not keep a reference to the batch once it returned,
+ * unless it calls {@link #retain()} first and {@link #release()} when it is done, possibly from another
+ * thread:
+ * <pre>
+ * public void call(final PooledBatch&lt;String&gt; batch)
+ * {
+ *     batch.retain();
+ *     executor.submit(new Runnable() {
+ *         public void run()
+ *         {
+ *             try {
+ *                 write(batch);
+ *             } finally {
+ *                 batch.release();
+ *             }
+ *         }
+ *     });
+ * }
+ * </pre>
+ * A batch is read only for the delegate; using it after it was recycled throws {@link IllegalStateException}.
+ */
+public final class PooledBatch<T> extends AbstractList<T> implements RandomAccess
+{
+    private static final int FILLING = 0;
+    private static final int DELIVERED = 1;
+    private static final int RETAINED = 2;
+    private static final int RECYCLED = 3;
+
+    /** The low bits of {@link #state} hold the state, the others count the uses of the batch. */
+    private static final int STATE_MASK = 3;
+    private static final int GENERATION = 4;
+
+    private final Object [] items;
+    private final BlockingQueue<PooledBatch<T>> pool;
+    private int size;
+
+    /**
+     * Every change is a compare and set, so a batch is recycled exactly once per use. The generation
+     * is bumped by every reuse, so a delivery that ends late can not recycle the next use of the batch.
+     */
+    private final AtomicInteger state = new AtomicInteger(RECYCLED);
+
+    PooledBatch(int capacity, BlockingQueue<PooledBatch<T>> pool)
+    {
+        this.items = new Object [capacity];
+        this.pool = pool;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index)
+    {
+        checkReadable();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (T) items[index];
+    }
+
+    @Override
+    public int size()
+    {
+        checkReadable();
+        return size;
+    }
+
+    /**
+     * Keep this batch after the delegate returns. It is only reused after {@link #release()}.
+     */
+    public void retain()
+    {
+        if (!transition(DELIVERED, RETAINED)) {
+            throw new IllegalStateException("Only a batch that is being delivered can be retained");
+        }
+    }
+
+    /**
+     * Give a retained batch back, it must not be used afterwards. May be called before the delegate returns.
+     */
+    public void release()
+    {
+        if (!transition(RETAINED, RECYCLED)) {
+            throw new IllegalStateException("Batch was not retained, or released already");
+        }
+        returnToPool();
+    }
+
+    /** Used by the batching callback to fill the batch, the delegate can not add items. */
+    @Override
+    public boolean add(T item)
+    {
+        if ((state.get() & STATE_MASK) != FILLING) {
+            throw new UnsupportedOperationException();
+        }
+        items[size++] = item;
+        return true;
+    }
+
+    /** Called when the batch is taken out of the pool, or was just created. Starts a new generation. */
+    void reuse()
+    {
+        final int current = state.get();
+        if ((current & STATE_MASK) != RECYCLED || !state.compareAndSet(current, ((current & ~STATE_MASK) + GENERATION) | FILLING)) {
+            throw new IllegalStateException("Batch is still in use");
+        }
+        size = 0;
+    }
+
+    /**
+     * Called before the batch is handed to the delegate.
+     * @return the stamp of this delivery, for {@link #delivered(int)}.
+     */
+    int delivering()
+    {
+        final int current = state.get();
+        final int stamp = (current & ~STATE_MASK) | DELIVERED;
+        if ((current & STATE_MASK) != FILLING || !state.compareAndSet(current, stamp)) {
+            throw new IllegalStateException("Batch is not being filled");
+        }
+        return stamp;
+    }
+
+    /**
+     * Called when the delegate returned, recycles the batch unless it was retained. Does nothing if the batch was
+     * released already, even if it is in use for another delivery by now.
+     */
+    void delivered(int stamp)
+    {
+        if (state.compareAndSet(stamp, (stamp & ~STATE_MASK) | RECYCLED)) {
+            returnToPool();
+        }
+    }
+
+    /** Called when nothing was drained into the batch. */
+    void unused()
+    {
+        if (!transition(FILLING, RECYCLED)) {
+            throw new IllegalStateException("Batch is not being filled");
+        }
+        returnToPool();
+    }
+
+    /** Changes the state within the current generation. */
+    private boolean transition(int from, int to)
+    {
+        final int current = state.get();
+        return (current & STATE_MASK) == from && state.compareAndSet(current, (current & ~STATE_MASK) | to);
+    }
+
+    /** Empties a batch that was just recycled and puts it back into the pool. */
+    private void returnToPool()
+    {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        // a full pool drops the batch
+        pool.offer(this);
+    }
+
+    private void checkReadable()
+    {
+        if ((state.get() & STATE_MASK) == RECYCLED) {
+            throw new IllegalStateException("Batch was recycled");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A {@link BatchingCallback} that drains into recycled {@link PooledBatch} arrays instead of a new
+ * list per batch. A batch goes back to the pool when the delegate returns, unless the delegate
+ * retained it.
+ */
+class PooledBatchingCallback<T> extends BatchingCallback<T>
+{
+    /** Enough for a synchronous delegate and a few retained batches, more are allocated and dropped. */
+    private static final int POOL_SIZE = 4;
+
+    private final int size;
+    private final Callback<? super PooledBatch<T>> pooledOut;
+    private final BlockingQueue<PooledBatch<T>> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @SuppressWarnings("unchecked")
+    PooledBatchingCallback(int size, Callback<? super PooledBatch<T>> out)
+    {
+        // the delegate is never called with a plain list, see commitInternal()
+        super(size, (Callback<? super List<T>>) (Callback<?>) out);
+        this.size = size;
+        this.pooledOut = out;
+    }
+
+    @Override
+    void commitInternal() throws CallbackRefusedException
+    {
+        PooledBatch<T> batch = pool.poll();
+        if (batch == null) {
+            batch = new PooledBatch<T>(size, pool);
+        }
+        batch.reuse();
+
+        if (drainTo(batch) == 0) {
+            batch.unused();
+            return;
+        }
+
+        final int stamp = batch.delivering();
+        try {
+            pooledOut.call(batch);
+        } catch (final Exception e) {
+            Throwables.propagateIfInstanceOf(e, CallbackRefusedException.class);
+            throw Throwables.propagate(e);
+        } finally {
+            batch.delivered(stamp);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+/**
+ * Computes the weight of an item, usually its size in bytes. See {@link Weighers} for common ones.
+ */
+public interface Weigher<T>
+{
+    /**
+     * Returns the weight of an item, which must not be negative and must not change while the
+     * item is buffered.
+     */
+    long weigh(T item);
+}
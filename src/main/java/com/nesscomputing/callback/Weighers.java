@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Weigher helper methods
+ */
+public final class Weighers
+{
+    private Weighers() { }
+
+    /**
+     * Weighs byte arrays by their length.
+     */
+    public static Weigher<byte []> byteArrayLength()
+    {
+        return BYTE_ARRAY_LENGTH;
+    }
+
+    /**
+     * Weighs buffers by the number of bytes between their position and limit.
+     */
+    public static Weigher<ByteBuffer> byteBufferRemaining()
+    {
+        return BYTE_BUFFER_REMAINING;
+    }
+
+    /**
+     * Every item weighs one, so a weight limit is a second limit on the number of items.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Weigher<T> singleton()
+    {
+        return (Weigher<T>) SINGLETON;
+    }
+
+    private static final Weigher<byte []> BYTE_ARRAY_LENGTH = new Weigher<byte []>() {
+        @Override
+        public long weigh(byte [] item)
+        {
+            return item.length;
+        }
+    };
+
+    private static final Weigher<ByteBuffer> BYTE_BUFFER_REMAINING = new Weigher<ByteBuffer>() {
+        @Override
+        public long weigh(ByteBuffer item)
+        {
+            return item.remaining();
+        }
+    };
+
+    private static final Weigher<Object> SINGLETON = new Weigher<Object>() {
+        @Override
+        public long weigh(Object item)
+        {
+            return 1;
+        }
+    };
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nesscomputing.util.Sizes;
+
+/**
+ * A {@link BatchingCallback} that also limits the total weight of a batch. An item that would push
+ * the batch over the limit is put into the next batch, so a batch only weighs more than the limit
+ * if it consists of a single item that does.
+ *
+ * <p> Adding and flushing hold a lock, so the weight always matches the buffered items, and batches
+ * reach the delegate one at a time and in order.
+ */
+class WeighingBatchingCallback<T> extends BatchingCallback<T>
+{
+    private final long maxWeight;
+    private final Weigher<? super T> weigher;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The weight of the buffered items. */
+    private long weight;
+
+    private long batchCount;
+    private long totalWeight;
+    private long largestBatchWeight;
+
+    WeighingBatchingCallback(int size, long maxWeight, Weigher<? super T> weigher, Callback<? super List<T>> out)
+    {
+        super(size, out);
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Weight limit must be positive, was " + maxWeight);
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("Null weigher");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    @Override
+    public void call(T item) throws CallbackRefusedException
+    {
+        final long itemWeight = weigher.weigh(item);
+        if (itemWeight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative, was " + itemWeight + " for " + item);
+        }
+
+        lock.lock();
+        try {
+            if (weight > 0 && weight + itemWeight > maxWeight) {
+                commitInternal();
+            }
+            super.call(item);
+            weight += itemWeight;
+            if (weight >= maxWeight) {
+                commitInternal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    void commitInternal() throws CallbackRefusedException
+    {
+        lock.lock();
+        try {
+            final long batchWeight = weight;
+            weight = 0;
+            if (batchWeight > 0) {
+                batchCount++;
+                totalWeight += batchWeight;
+                largestBatchWeight = Math.max(largestBatchWeight, batchWeight);
+            }
+            super.commitInternal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Describes the buffered weight and the batches so far, with weights formatted as sizes in bytes.
+     */
+    @Override
+    public String toString()
+    {
+        lock.lock();
+        try {
+            return String.format("%s[buffered=%s, maxWeight=%s, batches=%d, total=%s, largestBatch=%s]",
+                                 getClass().getSimpleName(),
+                                 Sizes.formatSize(weight),
+                                 Sizes.formatSize(maxWeight),
+                                 batchCount,
+                                 Sizes.formatSize(totalWeight),
+                                 Sizes.formatSize(largestBatchWeight));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open addressing over a single {@code long} array, shared by {@link UUIDSet},
+ * {@link UUIDLongMap} and {@link UUIDObjectMap}.
+ *
+ * <p> The key of slot {@code i} is stored in {@code keys[2 * i]} (most significant bits) and
+ * {@code keys[2 * i + 1]} (least significant bits), so a probe touches a single cache line.
+ * Keys are found by linear probing from
+ * {@link UUIDHash#mix(long, long)} and removed by shifting the following entries back, so
+ * there are no tombstones. An all zero slot is empty, the nil UUID itself lives in the extra
+ * slot at index {@code n}. Subclasses keep their values in arrays of the same length, and
+ * move them around through the hooks below.
+ */
+abstract class AbstractUUIDHashTable
+{
+    /** Tables are grown when they are three quarters full. */
+    private static final int MAX_FILL_PERCENT = 75;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    long [] keys;
+    /** Number of regular slots, a power of two. The nil key is in slot {@code n}. */
+    int n;
+    int mask;
+    boolean containsNil;
+    int size;
+    private int maxFill;
+
+    AbstractUUIDHashTable(int expectedSize)
+    {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative, was " + expectedSize);
+        }
+        allocateKeys(capacityFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries. Keeps the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(keys, 0L);
+        clearValues();
+        containsNil = false;
+        size = 0;
+    }
+
+    // HOOKS
+
+    /** Returns the current values array, so that {@link #rehash(int)} can copy from it. */
+    abstract Object values();
+
+    /** Allocate a new values array of the given length. */
+    abstract void allocateValues(int length);
+
+    /** Copy the value at {@code from} in the old values array to {@code to} in the current one. */
+    abstract void copyValue(Object oldValues, int from, int to);
+
+    /** Move a value within the current values array, and release the old slot. */
+    abstract void moveValue(int from, int to);
+
+    /** Release the value of a removed entry. */
+    abstract void clearValue(int slot);
+
+    abstract void clearValues();
+
+    // PROBING
+
+    /**
+     * Returns the slot of the key, or -1 if it is not in the table.
+     */
+    final int find(long msb, long lsb)
+    {
+        if ((msb | lsb) == 0) {
+            return containsNil ? n : -1;
+        }
+
+        int pos = (int) UUIDHash.mix(msb, lsb) & mask;
+        while (true) {
+            final long m = keys[2 * pos];
+            final long l = keys[2 * pos + 1];
+            if (m == msb && l == lsb) {
+                return pos;
+            }
+            if ((m | l) == 0) {
+                return -1;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the slot of the key if it is in the table, otherwise stores the key in a free
+     * slot and returns {@code -(slot + 1)}. The caller stores the value and then calls
+     * {@link #added()}.
+     */
+    final int insert(long msb, long lsb)
+    {
+        if ((msb | lsb) == 0) {
+            if (containsNil) {
+                return n;
+            }
+            containsNil = true;
+            return -(n + 1);
+        }
+
+        int pos = (int) UUIDHash.mix(msb, lsb) & mask;
+        while (true) {
+            final long m = keys[2 * pos];
+            final long l = keys[2 * pos + 1];
+            if (m == msb && l == lsb) {
+                return pos;
+            }
+            if ((m | l) == 0) {
+                keys[2 * pos] = msb;
+                keys[2 * pos + 1] = lsb;
+                return -(pos + 1);
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /** Account for an entry stored by {@link #insert(long, long)}, and grow the table if needed. */
+    final void added()
+    {
+        if (++size > maxFill) {
+            rehash(capacityFor(size));
+        }
+    }
+
+    /**
+     * Remove the entry in the given slot.
+     */
+    final void removeAt(int slot)
+    {
+        size--;
+        if (slot == n) {
+            containsNil = false;
+            clearValue(n);
+            return;
+        }
+
+        // shift back the following entries that probed past the freed slot
+        int last = slot;
+        int pos = slot;
+        while (true) {
+            pos = (pos + 1) & mask;
+            final long m = keys[2 * pos];
+            final long l = keys[2 * pos + 1];
+            if ((m | l) == 0) {
+                break;
+            }
+            final int home = (int) UUIDHash.mix(m, l) & mask;
+            // move the entry unless its home lies cyclically in (last, pos]
+            if (last <= pos ? (last >= home || home > pos) : (last >= home && home > pos)) {
+                keys[2 * last] = m;
+                keys[2 * last + 1] = l;
+                moveValue(pos, last);
+                last = pos;
+            }
+        }
+        keys[2 * last] = 0L;
+        keys[2 * last + 1] = 0L;
+        clearValue(last);
+    }
+
+    /**
+     * Returns the next occupied slot after {@code slot}, or -1. Start with -1.
+     */
+    final int nextSlot(int slot)
+    {
+        for (int pos = slot + 1; pos < n; pos++) {
+            if ((keys[2 * pos] | keys[2 * pos + 1]) != 0) {
+                return pos;
+            }
+        }
+        return slot < n && containsNil ? n : -1;
+    }
+
+    // SIZING
+
+    private void allocateKeys(int capacity)
+    {
+        this.n = capacity;
+        this.mask = capacity - 1;
+        this.maxFill = (int) ((long) capacity * MAX_FILL_PERCENT / 100);
+        this.keys = new long [2 * (capacity + 1)];
+    }
+
+    private void rehash(int capacity)
+    {
+        final long [] oldKeys = keys;
+        final Object oldValues = values();
+        final int oldN = n;
+
+        allocateKeys(capacity);
+        allocateValues(capacity + 1);
+
+        for (int i = 0; i < oldN; i++) {
+            final long m = oldKeys[2 * i];
+            final long l = oldKeys[2 * i + 1];
+            if ((m | l) != 0) {
+                int pos = (int) UUIDHash.mix(m, l) & mask;
+                while ((keys[2 * pos] | keys[2 * pos + 1]) != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[2 * pos] = m;
+                keys[2 * pos + 1] = l;
+                copyValue(oldValues, i, pos);
+            }
+        }
+        copyValue(oldValues, oldN, n);
+    }
+
+    /** Smallest power of two that holds {@code size} entries without exceeding the maximum fill. */
+    private static int capacityFor(int size)
+    {
+        final long needed = (long) size * 100 / MAX_FILL_PERCENT + 1;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Too many entries: " + size);
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Walks the occupied slots of a table. The public cursors of the subclasses add access to
+     * the values.
+     */
+    abstract static class SlotCursor
+    {
+        private final AbstractUUIDHashTable table;
+        int slot = -1;
+
+        SlotCursor(AbstractUUIDHashTable table)
+        {
+            this.table = table;
+        }
+
+        /**
+         * Move to the next entry.
+         * @return false if there are no more entries.
+         */
+        public boolean next()
+        {
+            if (slot == Integer.MAX_VALUE) {
+                return false;
+            }
+            slot = table.nextSlot(slot);
+            if (slot < 0) {
+                slot = Integer.MAX_VALUE;
+                return false;
+            }
+            return true;
+        }
+
+        /** The most significant bits of the current UUID. */
+        public long msb()
+        {
+            return table.keys[2 * slot];
+        }
+
+        /** The least significant bits of the current UUID. */
+        public long lsb()
+        {
+            return table.keys[2 * slot + 1];
+        }
+
+        /** Creates an {@link UUID} for the current entry. */
+        public UUID uuid()
+        {
+            return new UUID(msb(), lsb());
+        }
+    }
+}
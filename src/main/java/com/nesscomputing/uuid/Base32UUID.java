@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Encodes UUIDs as 26 characters of Crockford base32 (http://www.crockford.com/wrmg/base32.html),
+ * e.g. {@code 7R3N7TWZFC278AES80M34HWTZP} for {@code f81d4fae-7dec-11d0-a765-00a0c91e6bf6}.
+ *
+ * <p> The 128 bits are encoded as a 130 bit number, so the first character is always between
+ * {@code 0} and {@code 7}. This is the same layout ULIDs use, so the encoded form sorts like the
+ * unsigned value of the UUID. Encoding always emits upper case. Decoding ignores case and accepts
+ * {@code I} and {@code L} for {@code 1} and {@code O} for {@code 0}.
+ *
+ * <p> Same design as {@link NessUUID}: no intermediate objects when encoding or decoding,
+ * and a {@link #tryParse(CharSequence)} path that never throws.
+ */
+public final class Base32UUID
+{
+    private Base32UUID() {}
+
+    /** Number of characters in an encoded UUID. */
+    public static final int LENGTH = 26;
+
+    private static final char [] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /** Maps an ASCII character to its 5 bit value, all other characters map to -1. */
+    private static final byte [] VALUES = new byte [128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+            VALUES[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+        VALUES['I'] = VALUES['i'] = VALUES['L'] = VALUES['l'] = 1;
+        VALUES['O'] = VALUES['o'] = 0;
+    }
+
+    // TO STRING
+
+    public static String toString(UUID uuid)
+    {
+        return toString(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public static String toString(long msb, long lsb)
+    {
+        final char [] chars = new char [LENGTH];
+        encode(msb, lsb, chars, 0);
+        return NessUUID.newString(chars);
+    }
+
+    /**
+     * Write the 26 character representation of an UUID into a char array.
+     * @return the offset after the last character written.
+     */
+    public static int writeTo(long msb, long lsb, char [] dest, int offset)
+    {
+        checkRange(dest.length, offset);
+        encode(msb, lsb, dest, offset);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Write the 26 character representation of an UUID as ASCII into a byte array.
+     * @return the offset after the last byte written.
+     */
+    public static int writeAscii(long msb, long lsb, byte [] dest, int offset)
+    {
+        checkRange(dest.length, offset);
+        encode(msb, lsb, dest, offset);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Write the 26 character representation of an UUID as ASCII at the current
+     * position of a buffer and advance the position.
+     * @throws BufferOverflowException if fewer than 26 bytes remain in the buffer.
+     */
+    public static ByteBuffer writeAscii(long msb, long lsb, ByteBuffer dest)
+    {
+        if (dest.remaining() < LENGTH) {
+            throw new BufferOverflowException();
+        }
+
+        final int position = dest.position();
+        if (dest.hasArray()) {
+            encode(msb, lsb, dest.array(), dest.arrayOffset() + position);
+        }
+        else {
+            dest.put(position, (byte) ALPHABET[(int) (msb >>> 61)]);
+            for (int i = 0; i < 12; i++) {
+                dest.put(position + 1 + i, (byte) ALPHABET[(int) (msb >>> (56 - 5 * i)) & 0x1f]);
+            }
+            dest.put(position + 13, (byte) ALPHABET[(int) ((msb << 4) & 0x10 | (lsb >>> 60))]);
+            for (int i = 0; i < 12; i++) {
+                dest.put(position + 14 + i, (byte) ALPHABET[(int) (lsb >>> (55 - 5 * i)) & 0x1f]);
+            }
+        }
+        dest.position(position + LENGTH);
+        return dest;
+    }
+
+    private static void encode(long msb, long lsb, char [] dest, int offset)
+    {
+        // 3 bits, 12 characters of msb, one that straddles msb and lsb and 12 characters of lsb.
+        dest[offset] = ALPHABET[(int) (msb >>> 61)];
+        for (int i = 0; i < 12; i++) {
+            dest[offset + 1 + i] = ALPHABET[(int) (msb >>> (56 - 5 * i)) & 0x1f];
+        }
+        dest[offset + 13] = ALPHABET[(int) ((msb << 4) & 0x10 | (lsb >>> 60))];
+        for (int i = 0; i < 12; i++) {
+            dest[offset + 14 + i] = ALPHABET[(int) (lsb >>> (55 - 5 * i)) & 0x1f];
+        }
+    }
+
+    private static void encode(long msb, long lsb, byte [] dest, int offset)
+    {
+        dest[offset] = (byte) ALPHABET[(int) (msb >>> 61)];
+        for (int i = 0; i < 12; i++) {
+            dest[offset + 1 + i] = (byte) ALPHABET[(int) (msb >>> (56 - 5 * i)) & 0x1f];
+        }
+        dest[offset + 13] = (byte) ALPHABET[(int) ((msb << 4) & 0x10 | (lsb >>> 60))];
+        for (int i = 0; i < 12; i++) {
+            dest[offset + 14 + i] = (byte) ALPHABET[(int) (lsb >>> (55 - 5 * i)) & 0x1f];
+        }
+    }
+
+    // FROM STRING
+
+    /**
+     * Parse a 26 character Crockford base32 UUID.
+     * @throws IllegalArgumentException if the string is not a valid encoded UUID.
+     */
+    public static UUID fromString(String str)
+    {
+        final UUID uuid = tryParse(str);
+        if (uuid == null) {
+            throw new IllegalArgumentException("Invalid base32 UUID string: " + str);
+        }
+        return uuid;
+    }
+
+    /**
+     * Parse 26 ASCII encoded bytes as a Crockford base32 UUID.
+     * @throws IllegalArgumentException if the bytes are not a valid encoded UUID.
+     */
+    public static UUID fromBytes(byte [] bytes, int offset)
+    {
+        final long [] bits = new long [2];
+        if (!tryParse(bytes, offset, bits, 0)) {
+            throw new IllegalArgumentException("Invalid base32 UUID bytes at offset " + offset);
+        }
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Returns true if the sequence is exactly one Crockford base32 encoded UUID.
+     */
+    public static boolean isValid(CharSequence seq)
+    {
+        if (seq == null || seq.length() != LENGTH) {
+            return false;
+        }
+
+        final int first = value(seq.charAt(0));
+        // the first character only holds 3 bits
+        int values = first | (7 - first);
+        for (int i = 1; i < LENGTH; i++) {
+            values |= value(seq.charAt(i));
+        }
+        return values >= 0;
+    }
+
+    /**
+     * Parse a 26 character Crockford base32 UUID.
+     * @return the UUID, or null if the sequence is not a valid encoded UUID.
+     */
+    public static UUID tryParse(CharSequence seq)
+    {
+        if (seq == null || seq.length() != LENGTH) {
+            return null;
+        }
+        final long [] bits = new long [2];
+        return tryParse(seq, 0, bits, 0) ? new UUID(bits[0], bits[1]) : null;
+    }
+
+    /**
+     * Parse the 26 characters at {@code start} as a Crockford base32 UUID, and store the most significant bits in
+     * {@code dest[offset]} and the least significant bits in {@code dest[offset + 1]}. Never throws for bad input.
+     * @return true if the characters were a valid encoded UUID, false otherwise. {@code dest} is undefined if
+     * false is returned.
+     */
+    public static boolean tryParse(CharSequence seq, int start, long [] dest, int offset)
+    {
+        if (start < 0 || start > seq.length() - LENGTH) {
+            return false;
+        }
+
+        final int first = value(seq.charAt(start));
+        int values = first | (7 - first);
+        long msb = first;
+        for (int i = 1; i < 13; i++) {
+            final int value = value(seq.charAt(start + i));
+            values |= value;
+            msb = (msb << 5) | value;
+        }
+
+        final int middle = value(seq.charAt(start + 13));
+        values |= middle;
+        msb = (msb << 1) | (middle >>> 4);
+        long lsb = middle & 0x0f;
+
+        for (int i = 14; i < LENGTH; i++) {
+            final int value = value(seq.charAt(start + i));
+            values |= value;
+            lsb = (lsb << 5) | value;
+        }
+
+        if (values < 0) {
+            return false;
+        }
+        dest[offset] = msb;
+        dest[offset + 1] = lsb;
+        return true;
+    }
+
+    /**
+     * Parse the 26 ASCII encoded bytes at {@code offset} as a Crockford base32 UUID, and store the most significant
+     * bits in {@code dest[destOffset]} and the least significant bits in {@code dest[destOffset + 1]}. Never throws
+     * for bad input.
+     * @return true if the bytes were a valid encoded UUID, false otherwise.
+     */
+    public static boolean tryParse(byte [] bytes, int offset, long [] dest, int destOffset)
+    {
+        if (offset < 0 || offset > bytes.length - LENGTH) {
+            return false;
+        }
+
+        final int first = value(bytes[offset]);
+        int values = first | (7 - first);
+        long msb = first;
+        for (int i = 1; i < 13; i++) {
+            final int value = value(bytes[offset + i]);
+            values |= value;
+            msb = (msb << 5) | value;
+        }
+
+        final int middle = value(bytes[offset + 13]);
+        values |= middle;
+        msb = (msb << 1) | (middle >>> 4);
+        long lsb = middle & 0x0f;
+
+        for (int i = 14; i < LENGTH; i++) {
+            final int value = value(bytes[offset + i]);
+            values |= value;
+            lsb = (lsb << 5) | value;
+        }
+
+        if (values < 0) {
+            return false;
+        }
+        dest[destOffset] = msb;
+        dest[destOffset + 1] = lsb;
+        return true;
+    }
+
+    /** Returns the 5 bit value of a character, or -1 if it is not part of the alphabet. */
+    private static int value(char c)
+    {
+        return VALUES[c & 0x7f] | ((0x7f - c) >> 31);
+    }
+
+    private static int value(byte b)
+    {
+        return VALUES[b & 0x7f] | (b >> 31);
+    }
+
+    private static void checkRange(int size, int offset)
+    {
+        if (offset < 0 || offset > size - LENGTH) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) out of bounds for size %d", offset, size));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Encodes UUIDs as 22 characters of unpadded, URL safe base64 (RFC 4648, section 5),
+ * e.g. {@code -B1Prn3sEdCnZQCgyR5r9g} for {@code f81d4fae-7dec-11d0-a765-00a0c91e6bf6}.
+ *
+ * <p> The encoding is the base64 of the 16 big endian bytes of the UUID, so any base64url
+ * implementation can read it. Only the canonical form is accepted, i.e. the unused low
+ * four bits of the last character must be zero.
+ *
+ * <p> Same design as {@link NessUUID}: no intermediate objects when encoding or decoding,
+ * and a {@link #tryParse(CharSequence)} path that never throws.
+ */
+public final class Base64UUID
+{
+    private Base64UUID() {}
+
+    /** Number of characters in an encoded UUID. */
+    public static final int LENGTH = 22;
+
+    private static final char [] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /** Maps an ASCII character to its 6 bit value, all other characters map to -1. */
+    private static final byte [] VALUES = new byte [128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    // TO STRING
+
+    public static String toString(UUID uuid)
+    {
+        return toString(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public static String toString(long msb, long lsb)
+    {
+        final char [] chars = new char [LENGTH];
+        encode(msb, lsb, chars, 0);
+        return NessUUID.newString(chars);
+    }
+
+    /**
+     * Write the 22 character representation of an UUID into a char array.
+     * @return the offset after the last character written.
+     */
+    public static int writeTo(long msb, long lsb, char [] dest, int offset)
+    {
+        checkRange(dest.length, offset);
+        encode(msb, lsb, dest, offset);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Write the 22 character representation of an UUID as ASCII into a byte array.
+     * @return the offset after the last byte written.
+     */
+    public static int writeAscii(long msb, long lsb, byte [] dest, int offset)
+    {
+        checkRange(dest.length, offset);
+        encode(msb, lsb, dest, offset);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Write the 22 character representation of an UUID as ASCII at the current
+     * position of a buffer and advance the position.
+     * @throws BufferOverflowException if fewer than 22 bytes remain in the buffer.
+     */
+    public static ByteBuffer writeAscii(long msb, long lsb, ByteBuffer dest)
+    {
+        if (dest.remaining() < LENGTH) {
+            throw new BufferOverflowException();
+        }
+
+        final int position = dest.position();
+        if (dest.hasArray()) {
+            encode(msb, lsb, dest.array(), dest.arrayOffset() + position);
+        }
+        else {
+            for (int i = 0; i < 10; i++) {
+                dest.put(position + i, (byte) ALPHABET[(int) (msb >>> (58 - 6 * i)) & 0x3f]);
+            }
+            dest.put(position + 10, (byte) ALPHABET[(int) ((msb << 2) & 0x3c | (lsb >>> 62))]);
+            for (int i = 0; i < 10; i++) {
+                dest.put(position + 11 + i, (byte) ALPHABET[(int) (lsb >>> (56 - 6 * i)) & 0x3f]);
+            }
+            dest.put(position + 21, (byte) ALPHABET[(int) (lsb << 4) & 0x30]);
+        }
+        dest.position(position + LENGTH);
+        return dest;
+    }
+
+    private static void encode(long msb, long lsb, char [] dest, int offset)
+    {
+        // 10 characters of msb, one that straddles msb and lsb, 10 of lsb and the last two bits.
+        for (int i = 0; i < 10; i++) {
+            dest[offset + i] = ALPHABET[(int) (msb >>> (58 - 6 * i)) & 0x3f];
+        }
+        dest[offset + 10] = ALPHABET[(int) ((msb << 2) & 0x3c | (lsb >>> 62))];
+        for (int i = 0; i < 10; i++) {
+            dest[offset + 11 + i] = ALPHABET[(int) (lsb >>> (56 - 6 * i)) & 0x3f];
+        }
+        dest[offset + 21] = ALPHABET[(int) (lsb << 4) & 0x30];
+    }
+
+    private static void encode(long msb, long lsb, byte [] dest, int offset)
+    {
+        for (int i = 0; i < 10; i++) {
+            dest[offset + i] = (byte) ALPHABET[(int) (msb >>> (58 - 6 * i)) & 0x3f];
+        }
+        dest[offset + 10] = (byte) ALPHABET[(int) ((msb << 2) & 0x3c | (lsb >>> 62))];
+        for (int i = 0; i < 10; i++) {
+            dest[offset + 11 + i] = (byte) ALPHABET[(int) (lsb >>> (56 - 6 * i)) & 0x3f];
+        }
+        dest[offset + 21] = (byte) ALPHABET[(int) (lsb << 4) & 0x30];
+    }
+
+    // FROM STRING
+
+    /**
+     * Parse a 22 character base64url UUID.
+     * @throws IllegalArgumentException if the string is not a valid encoded UUID.
+     */
+    public static UUID fromString(String str)
+    {
+        final UUID uuid = tryParse(str);
+        if (uuid == null) {
+            throw new IllegalArgumentException("Invalid base64 UUID string: " + str);
+        }
+        return uuid;
+    }
+
+    /**
+     * Parse 22 ASCII encoded bytes as a base64url UUID.
+     * @throws IllegalArgumentException if the bytes are not a valid encoded UUID.
+     */
+    public static UUID fromBytes(byte [] bytes, int offset)
+    {
+        final long [] bits = new long [2];
+        if (!tryParse(bytes, offset, bits, 0)) {
+            throw new IllegalArgumentException("Invalid base64 UUID bytes at offset " + offset);
+        }
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Returns true if the sequence is exactly one canonical base64url encoded UUID.
+     */
+    public static boolean isValid(CharSequence seq)
+    {
+        if (seq == null || seq.length() != LENGTH) {
+            return false;
+        }
+
+        int values = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            values |= value(seq.charAt(i));
+        }
+        return values >= 0 && (value(seq.charAt(LENGTH - 1)) & 0x0f) == 0;
+    }
+
+    /**
+     * Parse a 22 character base64url UUID.
+     * @return the UUID, or null if the sequence is not a valid encoded UUID.
+     */
+    public static UUID tryParse(CharSequence seq)
+    {
+        if (seq == null || seq.length() != LENGTH) {
+            return null;
+        }
+        final long [] bits = new long [2];
+        return tryParse(seq, 0, bits, 0) ? new UUID(bits[0], bits[1]) : null;
+    }
+
+    /**
+     * Parse the 22 characters at {@code start} as a base64url UUID, and store the most significant bits in
+     * {@code dest[offset]} and the least significant bits in {@code dest[offset + 1]}. Never throws for bad input.
+     * @return true if the characters were a valid encoded UUID, false otherwise. {@code dest} is undefined if
+     * false is returned.
+     */
+    public static boolean tryParse(CharSequence seq, int start, long [] dest, int offset)
+    {
+        if (start < 0 || start > seq.length() - LENGTH) {
+            return false;
+        }
+
+        int values = 0;
+        long msb = 0;
+        for (int i = 0; i < 10; i++) {
+            final int value = value(seq.charAt(start + i));
+            values |= value;
+            msb = (msb << 6) | value;
+        }
+
+        final int middle = value(seq.charAt(start + 10));
+        values |= middle;
+        msb = (msb << 4) | (middle >>> 2);
+        long lsb = middle & 0x03;
+
+        for (int i = 11; i < 21; i++) {
+            final int value = value(seq.charAt(start + i));
+            values |= value;
+            lsb = (lsb << 6) | value;
+        }
+
+        final int last = value(seq.charAt(start + 21));
+        // the low four bits of the last character are padding and must be zero
+        values |= last | -(last & 0x0f);
+        lsb = (lsb << 2) | (last >>> 4);
+
+        if (values < 0) {
+            return false;
+        }
+        dest[offset] = msb;
+        dest[offset + 1] = lsb;
+        return true;
+    }
+
+    /**
+     * Parse the 22 ASCII encoded bytes at {@code offset} as a base64url UUID, and store the most significant bits in
+     * {@code dest[destOffset]} and the least significant bits in {@code dest[destOffset + 1]}. Never throws for bad input.
+     * @return true if the bytes were a valid encoded UUID, false otherwise.
+     */
+    public static boolean tryParse(byte [] bytes, int offset, long [] dest, int destOffset)
+    {
+        if (offset < 0 || offset > bytes.length - LENGTH) {
+            return false;
+        }
+
+        int values = 0;
+        long msb = 0;
+        for (int i = 0; i < 10; i++) {
+            final int value = value(bytes[offset + i]);
+            values |= value;
+            msb = (msb << 6) | value;
+        }
+
+        final int middle = value(bytes[offset + 10]);
+        values |= middle;
+        msb = (msb << 4) | (middle >>> 2);
+        long lsb = middle & 0x03;
+
+        for (int i = 11; i < 21; i++) {
+            final int value = value(bytes[offset + i]);
+            values |= value;
+            lsb = (lsb << 6) | value;
+        }
+
+        final int last = value(bytes[offset + 21]);
+        values |= last | -(last & 0x0f);
+        lsb = (lsb << 2) | (last >>> 4);
+
+        if (values < 0) {
+            return false;
+        }
+        dest[destOffset] = msb;
+        dest[destOffset + 1] = lsb;
+        return true;
+    }
+
+    /** Returns the 6 bit value of a character, or -1 if it is not part of the alphabet. */
+    private static int value(char c)
+    {
+        return VALUES[c & 0x7f] | ((0x7f - c) >> 31);
+    }
+
+    private static int value(byte b)
+    {
+        return VALUES[b & 0x7f] | (b >> 31);
+    }
+
+    private static void checkRange(int size, int offset)
+    {
+        if (offset < 0 || offset > size - LENGTH) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) out of bounds for size %d", offset, size));
+        }
+    }
+}
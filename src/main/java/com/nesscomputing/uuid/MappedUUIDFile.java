@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.nesscomputing.callback.CallbackRefusedException;
+
+/**
+ * Random access to a {@link UUIDFile} through memory mapping. Opening a file only checks its header,
+ * the records are paged in by the operating system when they are first read (or all at once by
+ * {@link #load()}), and are shared with other processes mapping the same file.
+ *
+ * <p> Files larger than 2 GB are mapped in several segments. All reads use absolute positions, so
+ * a mapped file can be read by many threads at once. The mapping is released when this object is
+ * garbage collected, there is no way to unmap it earlier.
+ */
+@ThreadSafe
+public final class MappedUUIDFile
+{
+    /** Segments of 1 GB, a multiple of the record size, so no record crosses two segments. */
+    private static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final Path path;
+    private final long size;
+    private final boolean sorted;
+    private final MappedByteBuffer [] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+
+    private MappedUUIDFile(Path path, long size, boolean sorted, MappedByteBuffer [] segments, int segmentShift)
+    {
+        this.path = path;
+        this.size = size;
+        this.sorted = sorted;
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+    }
+
+    /**
+     * Map a file read only.
+     * @throws IOException if the file can not be read, or is not a complete UUID file.
+     */
+    public static MappedUUIDFile open(Path path) throws IOException
+    {
+        return open(path, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    @VisibleForTesting
+    static MappedUUIDFile open(Path path, int segmentShift) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = UUIDFile.readHeader(channel, 0);
+            final long count = header.getLong(8);
+            final long length = channel.size();
+            UUIDFile.checkLength(path, length, count);
+
+            final long segmentSize = 1L << segmentShift;
+            final MappedByteBuffer [] segments = new MappedByteBuffer [(int) ((length + segmentSize - 1) >>> segmentShift)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = (long) i << segmentShift;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, length - position));
+            }
+            return new MappedUUIDFile(path, count, UUIDFile.isSorted(header), segments, segmentShift);
+        }
+    }
+
+    /**
+     * Returns the number of UUIDs in the file.
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the file was written in ascending order, see {@link UUIDArrays}. Only sorted files can be
+     * searched.
+     */
+    public boolean isSorted()
+    {
+        return sorted;
+    }
+
+    /**
+     * Ask the operating system to read the whole file into memory now, instead of on first access.
+     */
+    public MappedUUIDFile load()
+    {
+        for (MappedByteBuffer segment : segments) {
+            segment.load();
+        }
+        return this;
+    }
+
+    public long msb(long index)
+    {
+        checkIndex(index);
+        return getLong(UUIDFile.HEADER_SIZE + index * UUIDFile.RECORD_SIZE);
+    }
+
+    public long lsb(long index)
+    {
+        checkIndex(index);
+        return getLong(UUIDFile.HEADER_SIZE + index * UUIDFile.RECORD_SIZE + 8);
+    }
+
+    public UUID uuid(long index)
+    {
+        checkIndex(index);
+        final long position = UUIDFile.HEADER_SIZE + index * UUIDFile.RECORD_SIZE;
+        return new UUID(getLong(position), getLong(position + 8));
+    }
+
+    /**
+     * Copy {@code length} UUIDs, starting with the one at {@code index}, to {@code msbOut} and {@code lsbOut},
+     * starting at {@code offset}.
+     */
+    public void copyTo(long index, long [] msbOut, long [] lsbOut, int offset, int length)
+    {
+        if (index < 0 || length < 0 || index > size - length) {
+            throw new IndexOutOfBoundsException(String.format("index (%d) and length (%d) out of bounds for size %d", index, length, size));
+        }
+        if (offset < 0 || offset > msbOut.length - length || offset > lsbOut.length - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds", offset, length));
+        }
+        long position = UUIDFile.HEADER_SIZE + index * UUIDFile.RECORD_SIZE;
+        for (int i = offset; i < offset + length; i++) {
+            msbOut[i] = getLong(position);
+            lsbOut[i] = getLong(position + 8);
+            position += UUIDFile.RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Find an UUID in a sorted file with binary search.
+     * @return the index of the UUID, or {@code -(insertion point) - 1} if it is not in the file.
+     * @throws IllegalStateException if the file is not sorted.
+     */
+    public long indexOf(long msb, long lsb)
+    {
+        if (!sorted) {
+            throw new IllegalStateException(path + " is not sorted");
+        }
+
+        final long key = msb + Long.MIN_VALUE;
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            final long position = UUIDFile.HEADER_SIZE + mid * UUIDFile.RECORD_SIZE;
+            int cmp = Long.compare(getLong(position) + Long.MIN_VALUE, key);
+            if (cmp == 0) {
+                cmp = Long.compare(getLong(position + 8) + Long.MIN_VALUE, lsb + Long.MIN_VALUE);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public long indexOf(UUID uuid)
+    {
+        return indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns true if a sorted file contains the UUID.
+     * @throws IllegalStateException if the file is not sorted.
+     */
+    public boolean contains(long msb, long lsb)
+    {
+        return indexOf(msb, lsb) >= 0;
+    }
+
+    public boolean contains(UUID uuid)
+    {
+        return contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Call {@code callback} for every UUID, in file order. Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public long stream(UUIDBitsCallback callback) throws Exception
+    {
+        long position = UUIDFile.HEADER_SIZE;
+        for (long i = 0; i < size; i++) {
+            try {
+                callback.call(getLong(position), getLong(position + 8));
+            }
+            catch (CallbackRefusedException e) {
+                return i;
+            }
+            position += UUIDFile.RECORD_SIZE;
+        }
+        return size;
+    }
+
+    private long getLong(long position)
+    {
+        return segments[(int) (position >>> segmentShift)].getLong((int) (position & segmentMask));
+    }
+
+    private void checkIndex(long index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("index (%d) out of bounds for size %d", index, size));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedUUIDFile[" + path + ", size=" + size + (sorted ? ", sorted]" : "]");
+    }
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Generates name based UUIDs, version 3 (MD5) and version 5 (SHA-1) of RFC 4122. The same
+ * namespace and name always give the same UUID, so these make good ids for records that are
+ * identified by a natural key, e.g. a URL.
+ *
+ * <pre>
+ * NameUUIDGenerator urls = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_URL);
+ * UUID id = urls.uuid("http://www.example.com/");
+ * </pre>
+ *
+ * <p> {@link UUID#nameUUIDFromBytes(byte[])} looks up a new {@link MessageDigest} for every UUID and
+ * only supports version 3 without a namespace. Here, every thread keeps its own digests, and names
+ * are hashed where they are: character sequences are encoded to UTF-8 in small chunks instead of
+ * being copied into a new byte array.
+ */
+@Immutable
+public final class NameUUIDGenerator
+{
+    public static final UUID NAMESPACE_DNS = UUID.fromString("6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+    public static final UUID NAMESPACE_URL = UUID.fromString("6ba7b811-9dad-11d1-80b4-00c04fd430c8");
+    public static final UUID NAMESPACE_OID = UUID.fromString("6ba7b812-9dad-11d1-80b4-00c04fd430c8");
+    public static final UUID NAMESPACE_X500 = UUID.fromString("6ba7b814-9dad-11d1-80b4-00c04fd430c8");
+
+    private static final NameUUIDGenerator V3_NO_NAMESPACE = new NameUUIDGenerator(3, null);
+
+    /** Size of the buffer that character sequences are encoded into, leaves room for one more code point. */
+    private static final int ENCODE_BUFFER_SIZE = 1024;
+
+    private static final ThreadLocal<Digests> DIGESTS = new ThreadLocal<Digests>() {
+        @Override
+        protected Digests initialValue()
+        {
+            return new Digests();
+        }
+    };
+
+    private final int version;
+    private final UUID namespace;
+    private final byte [] namespaceBytes;
+
+    private NameUUIDGenerator(int version, UUID namespace)
+    {
+        this.version = version;
+        this.namespace = namespace;
+        this.namespaceBytes = namespace == null ? new byte [0] : toBytes(namespace);
+    }
+
+    /**
+     * Returns a generator for version 3 (MD5) UUIDs in the given namespace.
+     */
+    public static NameUUIDGenerator v3(UUID namespace)
+    {
+        return new NameUUIDGenerator(3, checkNamespace(namespace));
+    }
+
+    /**
+     * Returns a generator for version 3 UUIDs without a namespace, which creates the same UUIDs as
+     * {@link UUID#nameUUIDFromBytes(byte[])}.
+     */
+    public static NameUUIDGenerator v3()
+    {
+        return V3_NO_NAMESPACE;
+    }
+
+    /**
+     * Returns a generator for version 5 (SHA-1) UUIDs in the given namespace.
+     */
+    public static NameUUIDGenerator v5(UUID namespace)
+    {
+        return new NameUUIDGenerator(5, checkNamespace(namespace));
+    }
+
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns the namespace, or null for {@link #v3()}.
+     */
+    public UUID getNamespace()
+    {
+        return namespace;
+    }
+
+    /**
+     * Returns the UUID for a name, encoded as UTF-8.
+     */
+    public UUID uuid(CharSequence name)
+    {
+        final long [] bits = new long [2];
+        generate(name, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    public UUID uuid(byte [] name)
+    {
+        final long [] bits = new long [2];
+        generate(name, 0, name.length, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Returns the UUID for the bytes between the position and the limit of a buffer. The position is not changed.
+     */
+    public UUID uuid(ByteBuffer name)
+    {
+        final long [] bits = new long [2];
+        generate(name, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Create the UUID for a name, encoded as UTF-8, and store the most significant bits in {@code dest[offset]}
+     * and the least significant bits in {@code dest[offset + 1]}.
+     */
+    public void generate(CharSequence name, long [] dest, int offset)
+    {
+        checkBounds(offset, 2, dest.length);
+        final Digests digests = DIGESTS.get();
+        final MessageDigest digest = start(digests);
+        update(digest, digests.encoded, name);
+        finish(digest, digests.hash, dest, offset);
+    }
+
+    /**
+     * Create the UUID for {@code length} bytes of {@code name}, starting at {@code nameOffset}, and store the most
+     * significant bits in {@code dest[offset]} and the least significant bits in {@code dest[offset + 1]}.
+     */
+    public void generate(byte [] name, int nameOffset, int length, long [] dest, int offset)
+    {
+        checkBounds(nameOffset, length, name.length);
+        checkBounds(offset, 2, dest.length);
+        final Digests digests = DIGESTS.get();
+        final MessageDigest digest = start(digests);
+        digest.update(name, nameOffset, length);
+        finish(digest, digests.hash, dest, offset);
+    }
+
+    /**
+     * Create the UUID for the bytes between the position and the limit of a buffer, and store the most significant
+     * bits in {@code dest[offset]} and the least significant bits in {@code dest[offset + 1]}. The position of the
+     * buffer is not changed.
+     */
+    public void generate(ByteBuffer name, long [] dest, int offset)
+    {
+        checkBounds(offset, 2, dest.length);
+        final Digests digests = DIGESTS.get();
+        final MessageDigest digest = start(digests);
+        final int position = name.position();
+        digest.update(name);
+        name.position(position);
+        finish(digest, digests.hash, dest, offset);
+    }
+
+    /**
+     * Create the UUIDs for {@code length} names, starting at {@code names[nameOffset]}, and store their bits in
+     * {@code msbOut} and {@code lsbOut}, starting at {@code offset}.
+     */
+    public void fill(CharSequence [] names, int nameOffset, int length, long [] msbOut, long [] lsbOut, int offset)
+    {
+        checkFillBounds(names.length, nameOffset, length, msbOut, lsbOut, offset);
+        final Digests digests = DIGESTS.get();
+        final long [] bits = new long [2];
+        for (int i = 0; i < length; i++) {
+            final MessageDigest digest = start(digests);
+            update(digest, digests.encoded, names[nameOffset + i]);
+            finish(digest, digests.hash, bits, 0);
+            msbOut[offset + i] = bits[0];
+            lsbOut[offset + i] = bits[1];
+        }
+    }
+
+    /**
+     * Create the UUIDs for {@code length} names, starting at {@code names[nameOffset]}, and store their bits in
+     * {@code msbOut} and {@code lsbOut}, starting at {@code offset}.
+     */
+    public void fill(byte [][] names, int nameOffset, int length, long [] msbOut, long [] lsbOut, int offset)
+    {
+        checkFillBounds(names.length, nameOffset, length, msbOut, lsbOut, offset);
+        final Digests digests = DIGESTS.get();
+        final long [] bits = new long [2];
+        for (int i = 0; i < length; i++) {
+            final MessageDigest digest = start(digests);
+            final byte [] name = names[nameOffset + i];
+            digest.update(name, 0, name.length);
+            finish(digest, digests.hash, bits, 0);
+            msbOut[offset + i] = bits[0];
+            lsbOut[offset + i] = bits[1];
+        }
+    }
+
+    private MessageDigest start(Digests digests)
+    {
+        final MessageDigest digest = version == 3 ? digests.md5 : digests.sha1;
+        // drop whatever a call that failed half way left behind
+        digest.reset();
+        digest.update(namespaceBytes, 0, namespaceBytes.length);
+        return digest;
+    }
+
+    private void finish(MessageDigest digest, byte [] hash, long [] dest, int offset)
+    {
+        try {
+            // also resets the digest
+            digest.digest(hash, 0, hash.length);
+        }
+        catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (hash[i] & 0xff);
+            lsb = (lsb << 8) | (hash[i + 8] & 0xff);
+        }
+        dest[offset] = (msb & 0xffffffffffff0fffL) | ((long) version << 12);
+        dest[offset + 1] = (lsb & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    }
+
+    /**
+     * Hash the UTF-8 encoding of a character sequence, a buffer full at a time. Unpaired surrogates are
+     * encoded as '?', like {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    private static void update(MessageDigest digest, byte [] buffer, CharSequence name)
+    {
+        final int length = name.length();
+        final int limit = buffer.length - 4;
+        int i = 0;
+        while (i < length) {
+            int n = 0;
+            while (i < length && n <= limit) {
+                final char c = name.charAt(i++);
+                if (c < 0x80) {
+                    buffer[n++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    buffer[n++] = (byte) (0xc0 | (c >> 6));
+                    buffer[n++] = (byte) (0x80 | (c & 0x3f));
+                }
+                else if (!Character.isSurrogate(c)) {
+                    buffer[n++] = (byte) (0xe0 | (c >> 12));
+                    buffer[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buffer[n++] = (byte) (0x80 | (c & 0x3f));
+                }
+                else if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(name.charAt(i))) {
+                    final int codePoint = Character.toCodePoint(c, name.charAt(i++));
+                    buffer[n++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[n++] = (byte) (0x80 | (codePoint & 0x3f));
+                }
+                else {
+                    buffer[n++] = '?';
+                }
+            }
+            digest.update(buffer, 0, n);
+        }
+    }
+
+    private static void checkFillBounds(int names, int nameOffset, int length, long [] msbOut, long [] lsbOut, int offset)
+    {
+        checkBounds(nameOffset, length, names);
+        if (offset < 0 || length < 0 || offset > msbOut.length - length || offset > lsbOut.length - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds", offset, length));
+        }
+    }
+
+    private static void checkBounds(int offset, int length, int size)
+    {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds for %d", offset, length, size));
+        }
+    }
+
+    private static UUID checkNamespace(UUID namespace)
+    {
+        if (namespace == null) {
+            throw new IllegalArgumentException("Null namespace");
+        }
+        return namespace;
+    }
+
+    private static byte [] toBytes(UUID namespace)
+    {
+        final byte [] bytes = new byte [16];
+        final long msb = namespace.getMostSignificantBits();
+        final long lsb = namespace.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (msb >>> (56 - 8 * i));
+            bytes[i + 8] = (byte) (lsb >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "NameUUIDGenerator[version=" + version + ", namespace=" + namespace + "]";
+    }
+
+    /** The digests of one thread, with room for their results. */
+    private static final class Digests
+    {
+        final MessageDigest md5 = getInstance("MD5");
+        final MessageDigest sha1 = getInstance("SHA-1");
+        final byte [] hash = new byte [20];
+        final byte [] encoded = new byte [ENCODE_BUFFER_SIZE];
+
+        private static MessageDigest getInstance(String algorithm)
+        {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            }
+            catch (NoSuchAlgorithmException e) {
+                // every Java platform must support MD5 and SHA-1
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -15,15 +15,14 @@
  */
 package com.nesscomputing.uuid;
 
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
-import java.lang.reflect.Constructor;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.UUID;
-
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Preconditions;
-import com.google.common.base.Throwables;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A class that provides an alternate implementation of {@link
@@ -39,90 +38,593 @@ import com.google.common.base.Throwables;
 public final class NessUUID {
     private NessUUID() {}
 
-    private static final MethodHandle STRING_FACTORY;
-
-    private static final int NUM_ALPHA_DIFF = 'A' - '9' - 1;
-    private static final int LOWER_UPPER_DIFF = 'a' - 'A';
-
     // FROM STRING
 
     public static UUID fromString(String str) {
-        try {
-            int dashCount = 4;
-            final int [] dashPos = new int [6];
-            dashPos[0] = -1;
-            dashPos[5] = str.length();
-
-            for (int i = str.length()-1; i >= 0; i--) {
-                if (str.charAt(i) == '-') {
-                    if (dashCount == 0) {
-                        throw new IllegalArgumentException("Too many dashes (-)");
-                    }
-                    dashPos[dashCount--] = i;
+        final long [] bits = new long [2];
+        parse(str, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Parse an UUID from the characters {@code start} (inclusive) to {@code end} (exclusive)
+     * of a {@link CharSequence}, e.g. a {@link StringBuilder}, a {@link java.nio.CharBuffer} or a
+     * part of a larger String. Saves the {@code substring()} call (and the copy) that {@link
+     * #fromString(String)} would need.
+     */
+    public static UUID fromCharSequence(final CharSequence seq, final int start, final int end)
+    {
+        final long [] bits = new long [2];
+        parse(seq, start, end, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    // FROM STRING TO BITS
+
+    /**
+     * Parse an UUID like {@link #fromString(String)}, but store the most significant bits in {@code dest[offset]}
+     * and the least significant bits in {@code dest[offset + 1]} instead of creating an {@link UUID} object.
+     */
+    public static void parse(final String str, final long [] dest, final int offset)
+    {
+        parse(str, 0, str.length(), dest, offset);
+    }
+
+    /**
+     * Parse an UUID like {@link #fromCharSequence(CharSequence, int, int)}, but store the most significant bits in
+     * {@code dest[offset]} and the least significant bits in {@code dest[offset + 1]} instead of creating an
+     * {@link UUID} object.
+     */
+    public static void parse(final CharSequence seq, final int start, final int end, final long [] dest, final int offset)
+    {
+        final int status = decode(seq, start, end, dest, offset);
+        if (status != VALID) {
+            throw invalid(status, seq.subSequence(start, end));
+        }
+    }
+
+    // VALIDATION
+
+    /**
+     * Returns true if {@link #fromString(String)} would accept the sequence. Never throws and
+     * does not create any objects, so rejecting bad input is as cheap as accepting good input.
+     */
+    public static boolean isValid(final CharSequence seq)
+    {
+        return seq != null && decode(seq, 0, seq.length(), null, 0) == VALID;
+    }
+
+    /**
+     * Parse an UUID like {@link #fromString(String)}, but return null instead of throwing an
+     * exception if the sequence is not a valid UUID.
+     */
+    public static UUID tryParse(final CharSequence seq)
+    {
+        if (seq == null) {
+            return null;
+        }
+        final long [] bits = new long [2];
+        return decode(seq, 0, seq.length(), bits, 0) == VALID ? new UUID(bits[0], bits[1]) : null;
+    }
+
+    /**
+     * Parse an UUID like {@link #parse(CharSequence, int, int, long[], int)}, but return false
+     * instead of throwing an exception if the characters are not a valid UUID.
+     * @return true if the UUID was valid and has been stored in {@code dest}.
+     */
+    public static boolean tryParse(final CharSequence seq, final int start, final int end, final long [] dest, final int offset)
+    {
+        return decode(seq, start, end, dest, offset) == VALID;
+    }
+
+    // Results of the decode() methods. Bad input is reported with these instead of exceptions, so the
+    // tryParse() and isValid() methods never have to create (and throw away) an exception.
+
+    private static final int VALID = 0;
+    private static final int TOO_MANY_DASHES = 1;
+    private static final int NOT_ENOUGH_DASHES = 2;
+    private static final int EMPTY_FIELD = 3;
+    private static final int FIELD_TOO_LONG = 4;
+    private static final int INVALID_CHARACTER = 5;
+
+    /**
+     * Decodes the characters {@code start} to {@code end} into {@code dest}. If {@code dest} is null, the
+     * characters are only validated.
+     * @return {@link #VALID} or the reason the characters are not a valid UUID.
+     */
+    private static int decode(final CharSequence seq, final int start, final int end, final long [] dest, final int offset)
+    {
+        if (seq instanceof String) {
+            return decode((String) seq, start, end, dest, offset);
+        }
+
+        checkRange(seq.length(), start, end - start);
+        if (dest != null) {
+            checkRange(dest.length, offset, 2);
+        }
+
+        if (end - start == 36 && decodeCanonical(seq, start, dest, offset)) {
+            return VALID;
+        }
+        return decodeLenient(seq, start, end, dest, offset);
+    }
+
+    /**
+     * Decodes a canonical 8-4-4-4-12 UUID that starts at {@code start}, with the fields at their fixed offsets.
+     * @return false if the 36 characters are not a canonical UUID, {@code dest} is not changed then.
+     */
+    static boolean decodeCanonical(final CharSequence seq, final int start, final long [] dest, final int offset)
+    {
+        if (seq.charAt(start + 8) != '-' || seq.charAt(start + 13) != '-' || seq.charAt(start + 18) != '-' || seq.charAt(start + 23) != '-') {
+            return false;
+        }
+        return store(decode(seq, start, start + 8), decode(seq, start + 9, start + 13), decode(seq, start + 14, start + 18),
+                     decode(seq, start + 19, start + 23), decode(seq, start + 24, start + 36), dest, offset);
+    }
+
+    /**
+     * Decodes any UUID that {@link #fromString(String)} accepts, i.e. fields of 1 to 16 digits. Also finds
+     * out why input is not valid, including canonical looking input that the fast path rejected.
+     */
+    private static int decodeLenient(final CharSequence seq, final int start, final int end, final long [] dest, final int offset)
+    {
+        int dash1 = -1, dash2 = -1, dash3 = -1, dash4 = -1;
+        int dashCount = 0;
+        int firstInvalid = -1;
+
+        for (int i = start; i < end; i++) {
+            final char c = seq.charAt(i);
+            if (c == '-') {
+                switch (++dashCount) {
+                case 1: dash1 = i; break;
+                case 2: dash2 = i; break;
+                case 3: dash3 = i; break;
+                case 4: dash4 = i; break;
+                default:
+                    return TOO_MANY_DASHES;
                 }
             }
+            else if (nibble(c) < 0 && firstInvalid < 0) {
+                firstInvalid = i;
+            }
+        }
+
+        final int status = checkFields(dashCount, firstInvalid, start, dash1, dash2, dash3, dash4, end);
+        if (status != VALID || dest == null) {
+            return status;
+        }
+
+        long mostSigBits = decode(seq, start, dash1) & 0xffffffffL;
+        mostSigBits <<= 16;
+        mostSigBits |= (decode(seq, dash1 + 1, dash2) & 0xffffL);
+        mostSigBits <<= 16;
+        mostSigBits |= (decode(seq, dash2 + 1, dash3) & 0xffffL);
+
+        long leastSigBits = (decode(seq, dash3 + 1, dash4) & 0xffffL);
+        leastSigBits <<= 48;
+        leastSigBits |= (decode(seq, dash4 + 1, end) & 0xffffffffffffL);
+
+        dest[offset] = mostSigBits;
+        dest[offset + 1] = leastSigBits;
+        return VALID;
+    }
+
+    // The String versions of the decoders below keep the call sites of String#charAt(int) monomorphic, the
+    // CharSequence versions above see StringBuilders, CharBuffers and the AsciiSequence view of bytes.
+
+    private static int decode(final String str, final int start, final int end, final long [] dest, final int offset)
+    {
+        checkRange(str.length(), start, end - start);
+        if (dest != null) {
+            checkRange(dest.length, offset, 2);
+        }
+
+        if (end - start == 36 && decodeCanonical(str, start, dest, offset)) {
+            return VALID;
+        }
+        return decodeLenient(str, start, end, dest, offset);
+    }
 
-            if (dashCount > 0) {
-                throw new IllegalArgumentException("Not enough dashes (-)");
+    /** String version of {@link #decodeCanonical(CharSequence, int, long[], int)}. */
+    static boolean decodeCanonical(final String str, final int start, final long [] dest, final int offset)
+    {
+        if (str.charAt(start + 8) != '-' || str.charAt(start + 13) != '-' || str.charAt(start + 18) != '-' || str.charAt(start + 23) != '-') {
+            return false;
+        }
+        return store(decode(str, start, start + 8), decode(str, start + 9, start + 13), decode(str, start + 14, start + 18),
+                     decode(str, start + 19, start + 23), decode(str, start + 24, start + 36), dest, offset);
+    }
+
+    /** String version of {@link #decodeLenient(CharSequence, int, int, long[], int)}. */
+    private static int decodeLenient(final String str, final int start, final int end, final long [] dest, final int offset)
+    {
+        int dash1 = -1, dash2 = -1, dash3 = -1, dash4 = -1;
+        int dashCount = 0;
+        int firstInvalid = -1;
+
+        for (int i = start; i < end; i++) {
+            final char c = str.charAt(i);
+            if (c == '-') {
+                switch (++dashCount) {
+                case 1: dash1 = i; break;
+                case 2: dash2 = i; break;
+                case 3: dash3 = i; break;
+                case 4: dash4 = i; break;
+                default:
+                    return TOO_MANY_DASHES;
+                }
             }
+            else if (nibble(c) < 0 && firstInvalid < 0) {
+                firstInvalid = i;
+            }
+        }
 
-            long mostSigBits = decode(str, dashPos, 0) & 0xffffffffL;
-            mostSigBits <<= 16;
-            mostSigBits |= (decode(str, dashPos, 1) & 0xffffL);
-            mostSigBits <<= 16;
-            mostSigBits |= (decode(str,  dashPos, 2) & 0xffffL);
+        final int status = checkFields(dashCount, firstInvalid, start, dash1, dash2, dash3, dash4, end);
+        if (status != VALID || dest == null) {
+            return status;
+        }
+
+        long mostSigBits = decode(str, start, dash1) & 0xffffffffL;
+        mostSigBits <<= 16;
+        mostSigBits |= (decode(str, dash1 + 1, dash2) & 0xffffL);
+        mostSigBits <<= 16;
+        mostSigBits |= (decode(str, dash2 + 1, dash3) & 0xffffL);
 
-            long leastSigBits = (decode(str,  dashPos, 3) & 0xffffL);
-            leastSigBits <<= 48;
-            leastSigBits |= (decode(str,  dashPos, 4) & 0xffffffffffffL);
+        long leastSigBits = (decode(str, dash3 + 1, dash4) & 0xffffL);
+        leastSigBits <<= 48;
+        leastSigBits |= (decode(str, dash4 + 1, end) & 0xffffffffffffL);
 
-            return new UUID(mostSigBits, leastSigBits);
+        dest[offset] = mostSigBits;
+        dest[offset + 1] = leastSigBits;
+        return VALID;
+    }
+
+    /**
+     * Stores the decoded fields of a canonical UUID, unless {@code dest} is null. An invalid digit turns a
+     * field negative, so one check covers all 32 digits.
+     * @return false if a field had an invalid digit.
+     */
+    private static boolean store(final long f1, final long f2, final long f3, final long f4, final long f5, final long [] dest, final int offset)
+    {
+        if ((f1 | f2 | f3 | f4 | f5) < 0) {
+            return false;
         }
-        catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid UUID string: " + str, e);
+        if (dest != null) {
+            dest[offset] = (f1 << 32) | (f2 << 16) | f3;
+            dest[offset + 1] = (f4 << 48) | f5;
         }
+        return true;
     }
 
-    @VisibleForTesting
-    static long decode(final String str, final int [] dashPos, final int field) {
-        final int start = dashPos[field]+1;
-        final int end = dashPos[field+1];
-        if (start >= end) {
-            throw new IllegalArgumentException(String.format("In call to decode(), start (%d) >= end (%d)", start, end));
+    /** Decodes a field, the result is negative if it has an invalid digit. */
+    private static long decode(final String str, final int start, final int end)
+    {
+        long curr = 0;
+        for (int i = start; i < end; i++) {
+            curr = (curr << 4) | nibble(str.charAt(i));
         }
-        // at most 16 nibbles are allowed (64 bits)
-        else if (end - start > 16) {
-            throw new NumberFormatException("long overflow");
+        return curr;
+    }
+
+    private static long decode(final CharSequence seq, final int start, final int end)
+    {
+        long curr = 0;
+        for (int i = start; i < end; i++) {
+            curr = (curr << 4) | nibble(seq.charAt(i));
         }
+        return curr;
+    }
+
+    // FROM BYTES
+
+    /**
+     * Parse an UUID from a range of ASCII encoded bytes, e.g. straight out of a network frame.
+     * Accepts the same input as {@link #fromString(String)} but does not need an intermediate
+     * String.
+     */
+    public static UUID fromBytes(final byte [] bytes, final int offset, final int length)
+    {
+        final long [] bits = new long [2];
+        parse(bytes, offset, length, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Parse a canonical (36 character) UUID from the ASCII encoded bytes of a buffer,
+     * starting at the given absolute position.  The buffer position is not modified.
+     */
+    public static UUID fromBuffer(final ByteBuffer buffer, final int position)
+    {
+        return fromBuffer(buffer, position, 36);
+    }
 
+    /**
+     * Parse an UUID from a range of ASCII encoded bytes in a buffer, starting at the given
+     * absolute position. Works for heap and direct buffers. The buffer position is not modified.
+     */
+    public static UUID fromBuffer(final ByteBuffer buffer, final int position, final int length)
+    {
+        final long [] bits = new long [2];
+        parse(buffer, position, length, bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    // FROM BYTES TO BITS
+
+    /**
+     * Parse an UUID like {@link #fromBytes(byte[], int, int)}, but store the most significant bits in
+     * {@code dest[destOffset]} and the least significant bits in {@code dest[destOffset + 1]} instead
+     * of creating an {@link UUID} object.
+     */
+    public static void parse(final byte [] bytes, final int offset, final int length, final long [] dest, final int destOffset)
+    {
+        final int status = decode(bytes, offset, length, dest, destOffset);
+        if (status != VALID) {
+            throw invalid(status, new String(bytes, offset, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Parse an UUID like {@link #fromBuffer(ByteBuffer, int, int)}, but store the most significant bits in
+     * {@code dest[destOffset]} and the least significant bits in {@code dest[destOffset + 1]} instead
+     * of creating an {@link UUID} object.
+     */
+    public static void parse(final ByteBuffer buffer, final int position, final int length, final long [] dest, final int destOffset)
+    {
+        final int status = decode(buffer, position, length, dest, destOffset);
+        if (status != VALID) {
+            throw invalid(status, new AsciiSequence(buffer).subSequence(position, position + length));
+        }
+    }
+
+    /**
+     * Parse an UUID like {@link #parse(byte[], int, int, long[], int)}, but return false
+     * instead of throwing an exception if the bytes are not a valid UUID.
+     * @return true if the UUID was valid and has been stored in {@code dest}.
+     */
+    public static boolean tryParse(final byte [] bytes, final int offset, final int length, final long [] dest, final int destOffset)
+    {
+        return decode(bytes, offset, length, dest, destOffset) == VALID;
+    }
+
+    /**
+     * Parse an UUID like {@link #parse(ByteBuffer, int, int, long[], int)}, but return false
+     * instead of throwing an exception if the bytes are not a valid UUID.
+     * @return true if the UUID was valid and has been stored in {@code dest}.
+     */
+    public static boolean tryParse(final ByteBuffer buffer, final int position, final int length, final long [] dest, final int destOffset)
+    {
+        return decode(buffer, position, length, dest, destOffset) == VALID;
+    }
+
+    private static int decode(final byte [] bytes, final int offset, final int length, final long [] dest, final int destOffset)
+    {
+        checkRange(bytes.length, offset, length);
+        checkRange(dest.length, destOffset, 2);
+
+        if (length == 36 && decodeCanonical(bytes, offset, dest, destOffset)) {
+            return VALID;
+        }
+        // rare, so it shares the lenient decoder through a character view
+        return decodeLenient(new AsciiSequence(ByteBuffer.wrap(bytes)), offset, offset + length, dest, destOffset);
+    }
+
+    private static int decode(final ByteBuffer buffer, final int position, final int length, final long [] dest, final int destOffset)
+    {
+        checkRange(buffer.limit(), position, length);
+
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + position, length, dest, destOffset);
+        }
+
+        checkRange(dest.length, destOffset, 2);
+
+        if (length == 36 && decodeCanonical(buffer, position, dest, destOffset)) {
+            return VALID;
+        }
+        return decodeLenient(new AsciiSequence(buffer), position, position + length, dest, destOffset);
+    }
+
+    /** Same as {@link #decodeCanonical(CharSequence, int, long[], int)}, for ASCII bytes. */
+    static boolean decodeCanonical(final byte [] bytes, final int start, final long [] dest, final int offset)
+    {
+        if (bytes[start + 8] != '-' || bytes[start + 13] != '-' || bytes[start + 18] != '-' || bytes[start + 23] != '-') {
+            return false;
+        }
+        return store(decode(bytes, start, start + 8), decode(bytes, start + 9, start + 13), decode(bytes, start + 14, start + 18),
+                     decode(bytes, start + 19, start + 23), decode(bytes, start + 24, start + 36), dest, offset);
+    }
+
+    /** Same as {@link #decodeCanonical(CharSequence, int, long[], int)}, for ASCII bytes at absolute positions of a buffer. */
+    static boolean decodeCanonical(final ByteBuffer buffer, final int start, final long [] dest, final int offset)
+    {
+        if (buffer.get(start + 8) != '-' || buffer.get(start + 13) != '-' || buffer.get(start + 18) != '-' || buffer.get(start + 23) != '-') {
+            return false;
+        }
+        return store(decode(buffer, start, start + 8), decode(buffer, start + 9, start + 13), decode(buffer, start + 14, start + 18),
+                     decode(buffer, start + 19, start + 23), decode(buffer, start + 24, start + 36), dest, offset);
+    }
+
+    private static long decode(final byte [] bytes, final int start, final int end)
+    {
         long curr = 0;
         for (int i = start; i < end; i++) {
-            curr <<= 4;
-            curr |= getNibbleFromChar(str.charAt(i));
+            curr = (curr << 4) | NIBBLES[bytes[i] & 0xff];
         }
         return curr;
     }
 
-    static int getNibbleFromChar(final char c)
+    private static long decode(final ByteBuffer buffer, final int start, final int end)
+    {
+        long curr = 0;
+        for (int i = start; i < end; i++) {
+            curr = (curr << 4) | NIBBLES[buffer.get(i) & 0xff];
+        }
+        return curr;
+    }
+
+    /**
+     * The ASCII bytes of a buffer as characters, at the absolute positions of the buffer. Bytes above 0x7f
+     * become characters that are not hex digits.
+     */
+    private static final class AsciiSequence implements CharSequence
     {
-        int x = c - '0';
-        if (x > 9) {
-            x -= NUM_ALPHA_DIFF; // difference between '9' and 'A'
-            if (x > 15) {
-                x -= LOWER_UPPER_DIFF; // difference between 'a' and 'A'
+        private final ByteBuffer buffer;
+
+        AsciiSequence(final ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length()
+        {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(final int index)
+        {
+            return (char) (buffer.get(index) & 0xff);
+        }
+
+        @Override
+        public String subSequence(final int start, final int end)
+        {
+            final byte [] bytes = new byte [end - start];
+            for (int i = start; i < end; i++) {
+                bytes[i - start] = buffer.get(i);
             }
-            if (x < 10) {
-                throw new IllegalArgumentException(c + " is not a valid character for an UUID string");
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString()
+        {
+            return subSequence(0, length());
+        }
+    }
+
+    /**
+     * Validates the result of a dash scan. Reports the same problem as {@link #fromString(String)} always did
+     * for input with several: a wrong number of dashes first, then the fields from left to right, each
+     * checked for being empty, then too long (more than 16 digits), then for an invalid character.
+     * @param firstInvalid the index of the first character that is neither a dash nor a hex digit, or -1.
+     */
+    private static int checkFields(final int dashCount, final int firstInvalid, final int start,
+                                   final int dash1, final int dash2, final int dash3, final int dash4, final int end)
+    {
+        if (dashCount < 4) {
+            return NOT_ENOUGH_DASHES;
+        }
+        int status = checkField(start, dash1, firstInvalid);
+        if (status == VALID) {
+            status = checkField(dash1 + 1, dash2, firstInvalid);
+        }
+        if (status == VALID) {
+            status = checkField(dash2 + 1, dash3, firstInvalid);
+        }
+        if (status == VALID) {
+            status = checkField(dash3 + 1, dash4, firstInvalid);
+        }
+        if (status == VALID) {
+            status = checkField(dash4 + 1, end, firstInvalid);
+        }
+        return status;
+    }
+
+    private static int checkField(final int start, final int end, final int firstInvalid)
+    {
+        if (start == end) {
+            return EMPTY_FIELD;
+        }
+        // at most 16 nibbles are allowed (64 bits)
+        if (end - start > 16) {
+            return FIELD_TOO_LONG;
+        }
+        if (firstInvalid >= start && firstInvalid < end) {
+            return INVALID_CHARACTER;
+        }
+        return VALID;
+    }
+
+    /**
+     * Creates the exception for a failed decode. Only called for bad input, so the cost does not matter here.
+     */
+    private static IllegalArgumentException invalid(final int status, final CharSequence text)
+    {
+        final IllegalArgumentException cause;
+        switch (status) {
+        case TOO_MANY_DASHES:
+            cause = new IllegalArgumentException("Too many dashes (-)");
+            break;
+        case NOT_ENOUGH_DASHES:
+            cause = new IllegalArgumentException("Not enough dashes (-)");
+            break;
+        case EMPTY_FIELD:
+            cause = new IllegalArgumentException("Empty field");
+            break;
+        case FIELD_TOO_LONG:
+            cause = new NumberFormatException("long overflow");
+            break;
+        default:
+            cause = invalidCharacter(text);
+            break;
+        }
+        return new IllegalArgumentException("Invalid UUID string: " + text, cause);
+    }
+
+    private static IllegalArgumentException invalidCharacter(final CharSequence text)
+    {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c != '-' && nibble(c) < 0) {
+                return new IllegalArgumentException(c + " is not a valid character for an UUID string");
             }
         }
+        return new IllegalArgumentException("Invalid character");
+    }
 
-        if (x < 0 || x > 15) {
-            throw new IllegalArgumentException(c + " is not a valid character for an UUID string");
+    private static void checkRange(final int size, final int offset, final int length)
+    {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds for size %d", offset, length, size));
         }
+    }
 
+    static int getNibbleFromChar(final char c)
+    {
+        final int x = nibble(c);
+        if (x < 0) {
+            throw new IllegalArgumentException(c + " is not a valid character for an UUID string");
+        }
         return x;
     }
 
+    /**
+     * Returns the value of a hex digit, or -1 if the character is not a hex digit. Does not branch, so
+     * the decode loops can OR all nibbles together and validate them with a single check.
+     */
+    static int nibble(final char c)
+    {
+        // (0xff - c) >> 31 is -1 for any character outside of the table, 0 otherwise.
+        return NIBBLES[c & 0xff] | ((0xff - c) >> 31);
+    }
+
+    /** Maps an ASCII (or Latin-1) character to its hex value, all other characters map to -1. */
+    private static final byte [] NIBBLES = new byte [256];
+
+    static {
+        Arrays.fill(NIBBLES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            NIBBLES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            NIBBLES['a' + i] = (byte) (10 + i);
+            NIBBLES['A' + i] = (byte) (10 + i);
+        }
+    }
+
     // TO STRING
 
     public static String toString(UUID uuid)
@@ -130,84 +632,443 @@ public final class NessUUID {
         return toString(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
     }
 
-    /** Roughly patterned (read: stolen) from java.util.UUID and java.lang.Long. */
     public static String toString(long msb, long lsb)
     {
-        final char[] uuidChars = new char[36];
+        return toString(msb, lsb, LOWER_PAIRS);
+    }
 
-        digits(uuidChars, 0, 8, msb >> 32);
-        uuidChars[8] = '-';
-        digits(uuidChars, 9, 4, msb >> 16);
-        uuidChars[13] = '-';
-        digits(uuidChars, 14, 4, msb);
-        uuidChars[18] = '-';
-        digits(uuidChars, 19, 4, lsb >> 48);
-        uuidChars[23] = '-';
-        digits(uuidChars, 24, 12, lsb);
+    /**
+     * Same as {@link #toString(UUID)}, but uses upper case hex digits.
+     */
+    public static String toUpperCaseString(UUID uuid)
+    {
+        return toUpperCaseString(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
 
-        try {
-            return (String) STRING_FACTORY.invokeExact(uuidChars);
-        } catch (Throwable e) {
-            throw Throwables.propagate(e);
+    /**
+     * Same as {@link #toString(long, long)}, but uses upper case hex digits.
+     */
+    public static String toUpperCaseString(long msb, long lsb)
+    {
+        return toString(msb, lsb, UPPER_PAIRS);
+    }
+
+    private static String toString(long msb, long lsb, char[] pairs)
+    {
+        return StringFactory.newUuidString(msb, lsb, pairs);
+    }
+
+    /**
+     * Create a String from a freshly filled char array. Where possible, the String
+     * takes ownership of the array instead of copying it, so the array must not be
+     * modified afterwards.
+     */
+    static String newString(char[] chars)
+    {
+        return StringFactory.newString(chars);
+    }
+
+    // TO BUFFERS
+
+    /**
+     * Write the 36 character representation of an UUID into a char array.
+     * @return the offset after the last character written.
+     */
+    public static int writeTo(UUID uuid, char[] dest, int offset)
+    {
+        return writeTo(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), dest, offset);
+    }
+
+    /**
+     * Write the 36 character representation of an UUID into a char array.
+     * @return the offset after the last character written.
+     */
+    public static int writeTo(long msb, long lsb, char[] dest, int offset)
+    {
+        checkRange(dest.length, offset, 36);
+        format(msb, lsb, dest, offset, LOWER_PAIRS);
+        return offset + 36;
+    }
+
+    /**
+     * Write the 36 character representation of an UUID as ASCII into a byte array.
+     * @return the offset after the last byte written.
+     */
+    public static int writeAscii(UUID uuid, byte[] dest, int offset)
+    {
+        return writeAscii(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), dest, offset);
+    }
+
+    /**
+     * Write the 36 character representation of an UUID as ASCII into a byte array.
+     * @return the offset after the last byte written.
+     */
+    public static int writeAscii(long msb, long lsb, byte[] dest, int offset)
+    {
+        checkRange(dest.length, offset, 36);
+        format(msb, lsb, dest, offset, LOWER_PAIRS);
+        return offset + 36;
+    }
+
+    /**
+     * Write the 36 character representation of an UUID as ASCII at the current
+     * position of a buffer and advance the position.
+     * @throws BufferOverflowException if fewer than 36 bytes remain in the buffer.
+     */
+    public static ByteBuffer writeAscii(UUID uuid, ByteBuffer dest)
+    {
+        return writeAscii(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), dest);
+    }
+
+    /**
+     * Write the 36 character representation of an UUID as ASCII at the current
+     * position of a buffer and advance the position.
+     * @throws BufferOverflowException if fewer than 36 bytes remain in the buffer.
+     */
+    public static ByteBuffer writeAscii(long msb, long lsb, ByteBuffer dest)
+    {
+        if (dest.remaining() < 36) {
+            throw new BufferOverflowException();
+        }
+
+        final int position = dest.position();
+        if (dest.hasArray()) {
+            format(msb, lsb, dest.array(), dest.arrayOffset() + position, LOWER_PAIRS);
         }
+        else {
+            hex(dest, position, 4, msb >>> 32);
+            dest.put(position + 8, (byte) '-');
+            hex(dest, position + 9, 2, msb >>> 16);
+            dest.put(position + 13, (byte) '-');
+            hex(dest, position + 14, 2, msb);
+            dest.put(position + 18, (byte) '-');
+            hex(dest, position + 19, 2, lsb >>> 48);
+            dest.put(position + 23, (byte) '-');
+            hex(dest, position + 24, 6, lsb);
+        }
+        dest.position(position + 36);
+        return dest;
     }
 
-    private static void digits(char[] dest, int offset, int digits, long val) {
-        final long hi = 1L << (digits * 4);
-        toUnsignedString(dest, offset, digits, hi | (val & (hi - 1)), 4);
+    /**
+     * Append the 36 character representation of an UUID to a StringBuilder.
+     */
+    public static StringBuilder appendTo(UUID uuid, StringBuilder sb)
+    {
+        return appendTo(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), sb);
     }
 
-    private final static char[] DIGITS = {
-        '0' , '1' , '2' , '3' , '4' , '5' ,
-        '6' , '7' , '8' , '9' , 'a' , 'b' ,
-        'c' , 'd' , 'e' , 'f'
-    };
+    /**
+     * Append the 36 character representation of an UUID to a StringBuilder.
+     */
+    public static StringBuilder appendTo(long msb, long lsb, StringBuilder sb)
+    {
+        sb.ensureCapacity(sb.length() + 36);
+
+        hex(sb, 4, msb >>> 32);
+        sb.append('-');
+        hex(sb, 2, msb >>> 16);
+        sb.append('-');
+        hex(sb, 2, msb);
+        sb.append('-');
+        hex(sb, 2, lsb >>> 48);
+        sb.append('-');
+        hex(sb, 6, lsb);
 
-    private static void toUnsignedString(final char[] dest, final int offset, final int len, final long value, final int shift) {
-        int charPos = len;
-        final int radix = 1 << shift;
-        final long mask = radix - 1;
-        long i = value;
-        do {
-            dest[offset + --charPos] = DIGITS[(int)(i & mask)];
-            i >>>= shift;
-        } while (i != 0 && charPos > 0);
+        return sb;
     }
 
-    static {
-        Constructor<String> constructor = null;
+    /**
+     * Append the 36 character representation of an UUID to an {@link Appendable},
+     * e.g. a {@link java.io.Writer}.
+     */
+    public static Appendable appendTo(UUID uuid, Appendable appendable) throws IOException
+    {
+        return appendTo(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), appendable);
+    }
+
+    /**
+     * Append the 36 character representation of an UUID to an {@link Appendable},
+     * e.g. a {@link java.io.Writer}.
+     */
+    public static Appendable appendTo(long msb, long lsb, Appendable appendable) throws IOException
+    {
+        hex(appendable, 4, msb >>> 32);
+        appendable.append('-');
+        hex(appendable, 2, msb >>> 16);
+        appendable.append('-');
+        hex(appendable, 2, msb);
+        appendable.append('-');
+        hex(appendable, 2, lsb >>> 48);
+        appendable.append('-');
+        hex(appendable, 6, lsb);
+
+        return appendable;
+    }
 
-        try {
-            constructor = String.class.getDeclaredConstructor(char[].class, boolean.class);
-            constructor.setAccessible(true);
-        } catch (NoSuchMethodException | SecurityException e) { // NOPMD
-            e.printStackTrace(); // NOPMD logging may not be available in static constructor of ness-core
+    /**
+     * Formats the 16 bytes of an UUID as 8-4-4-4-12 hex digits, two digits per byte looked up
+     * from {@code pairs}. Fully unrolled, as the layout never changes.
+     */
+    static void format(final long msb, final long lsb, final char[] dest, final int offset, final char[] pairs)
+    {
+        pair(dest, offset,      (int) (msb >>> 56), pairs);
+        pair(dest, offset + 2,  (int) (msb >>> 48), pairs);
+        pair(dest, offset + 4,  (int) (msb >>> 40), pairs);
+        pair(dest, offset + 6,  (int) (msb >>> 32), pairs);
+        dest[offset + 8] = '-';
+        pair(dest, offset + 9,  (int) (msb >>> 24), pairs);
+        pair(dest, offset + 11, (int) (msb >>> 16), pairs);
+        dest[offset + 13] = '-';
+        pair(dest, offset + 14, (int) (msb >>> 8),  pairs);
+        pair(dest, offset + 16, (int) msb,          pairs);
+        dest[offset + 18] = '-';
+        pair(dest, offset + 19, (int) (lsb >>> 56), pairs);
+        pair(dest, offset + 21, (int) (lsb >>> 48), pairs);
+        dest[offset + 23] = '-';
+        pair(dest, offset + 24, (int) (lsb >>> 40), pairs);
+        pair(dest, offset + 26, (int) (lsb >>> 32), pairs);
+        pair(dest, offset + 28, (int) (lsb >>> 24), pairs);
+        pair(dest, offset + 30, (int) (lsb >>> 16), pairs);
+        pair(dest, offset + 32, (int) (lsb >>> 8),  pairs);
+        pair(dest, offset + 34, (int) lsb,          pairs);
+    }
+
+    static void format(final long msb, final long lsb, final byte[] dest, final int offset, final char[] pairs)
+    {
+        pair(dest, offset,      (int) (msb >>> 56), pairs);
+        pair(dest, offset + 2,  (int) (msb >>> 48), pairs);
+        pair(dest, offset + 4,  (int) (msb >>> 40), pairs);
+        pair(dest, offset + 6,  (int) (msb >>> 32), pairs);
+        dest[offset + 8] = '-';
+        pair(dest, offset + 9,  (int) (msb >>> 24), pairs);
+        pair(dest, offset + 11, (int) (msb >>> 16), pairs);
+        dest[offset + 13] = '-';
+        pair(dest, offset + 14, (int) (msb >>> 8),  pairs);
+        pair(dest, offset + 16, (int) msb,          pairs);
+        dest[offset + 18] = '-';
+        pair(dest, offset + 19, (int) (lsb >>> 56), pairs);
+        pair(dest, offset + 21, (int) (lsb >>> 48), pairs);
+        dest[offset + 23] = '-';
+        pair(dest, offset + 24, (int) (lsb >>> 40), pairs);
+        pair(dest, offset + 26, (int) (lsb >>> 32), pairs);
+        pair(dest, offset + 28, (int) (lsb >>> 24), pairs);
+        pair(dest, offset + 30, (int) (lsb >>> 16), pairs);
+        pair(dest, offset + 32, (int) (lsb >>> 8),  pairs);
+        pair(dest, offset + 34, (int) lsb,          pairs);
+    }
+
+    private static void pair(final char[] dest, final int offset, final int b, final char[] pairs)
+    {
+        final int i = (b & 0xff) << 1;
+        dest[offset] = pairs[i];
+        dest[offset + 1] = pairs[i + 1];
+    }
+
+    private static void pair(final byte[] dest, final int offset, final int b, final char[] pairs)
+    {
+        final int i = (b & 0xff) << 1;
+        dest[offset] = (byte) pairs[i];
+        dest[offset + 1] = (byte) pairs[i + 1];
+    }
+
+    /** Writes the lowest {@code bytes} bytes of {@code val} as hex digits, used by the less common targets. */
+    private static void hex(ByteBuffer dest, int offset, int bytes, long val)
+    {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            final int i = ((int) (val >>> shift) & 0xff) << 1;
+            dest.put(offset++, (byte) LOWER_PAIRS[i]);
+            dest.put(offset++, (byte) LOWER_PAIRS[i + 1]);
+        }
+    }
+
+    private static void hex(StringBuilder sb, int bytes, long val)
+    {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            final int i = ((int) (val >>> shift) & 0xff) << 1;
+            sb.append(LOWER_PAIRS[i]).append(LOWER_PAIRS[i + 1]);
         }
+    }
 
-        MethodHandle factory;
-        try {
-            factory = MethodHandles.lookup().findConstructor(String.class, MethodType.methodType(void.class, char[].class));
-        } catch (NoSuchMethodException | IllegalAccessException e) {
-            throw new ExceptionInInitializerError(e);
+    private static void hex(Appendable appendable, int bytes, long val) throws IOException
+    {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            final int i = ((int) (val >>> shift) & 0xff) << 1;
+            appendable.append(LOWER_PAIRS[i]).append(LOWER_PAIRS[i + 1]);
         }
-        if (constructor != null) {
-            try {
-                final MethodHandle fastFactory = MethodHandles.insertArguments(
-                        MethodHandles.lookup().unreflectConstructor(constructor),
-                        1, true);
+    }
 
-                final char[] unsharedChars = "test".toCharArray();
-                String testString = (String) fastFactory.invokeExact(unsharedChars);
-                Preconditions.checkState("test".equals(testString));
+    /** The two hex digits of every byte value, {@code pairs[2 * b]} is the high and {@code pairs[2 * b + 1]} the low digit. */
+    private static final char[] LOWER_PAIRS = hexPairs("0123456789abcdef");
+    private static final char[] UPPER_PAIRS = hexPairs("0123456789ABCDEF");
 
-                unsharedChars[0] = 'r';
-                Preconditions.checkState("rest".equals(testString)); // :O
+    private static char[] hexPairs(final String digits)
+    {
+        final char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[2 * b] = digits.charAt(b >>> 4);
+            pairs[2 * b + 1] = digits.charAt(b & 0xf);
+        }
+        return pairs;
+    }
+
+    // BULK
+
+    /** Arrays shorter than this are converted by the calling thread, larger ones are split across a {@link ForkJoinPool}. */
+    public static final int DEFAULT_BULK_THRESHOLD = 8192;
+
+    /**
+     * Parse every string of {@code in} and store the bits in {@code msbOut} and {@code lsbOut} at the same index.
+     * Large arrays are split across a shared {@link ForkJoinPool}.
+     */
+    public static void fromStrings(String[] in, long[] msbOut, long[] lsbOut)
+    {
+        fromStrings(in, msbOut, lsbOut, BulkPool.POOL, DEFAULT_BULK_THRESHOLD);
+    }
+
+    /**
+     * Parse every string of {@code in} and store the bits in {@code msbOut} and {@code lsbOut} at the same index.
+     * Arrays larger than {@code threshold} are split into chunks of at most {@code threshold} elements, which are
+     * converted by {@code pool}.
+     */
+    public static void fromStrings(String[] in, long[] msbOut, long[] lsbOut, ForkJoinPool pool, int threshold)
+    {
+        checkBulk(in.length, msbOut.length, lsbOut.length, threshold);
+
+        if (in.length <= threshold) {
+            fromStrings(in, msbOut, lsbOut, 0, in.length);
+        }
+        else {
+            pool.invoke(new FromStringsTask(in, msbOut, lsbOut, 0, in.length, threshold));
+        }
+    }
+
+    /**
+     * Format every msb / lsb pair and store the result in {@code out} at the same index.
+     * Large arrays are split across a shared {@link ForkJoinPool}.
+     */
+    public static void toStrings(long[] msb, long[] lsb, String[] out)
+    {
+        toStrings(msb, lsb, out, BulkPool.POOL, DEFAULT_BULK_THRESHOLD);
+    }
+
+    /**
+     * Format every msb / lsb pair and store the result in {@code out} at the same index.
+     * Arrays larger than {@code threshold} are split into chunks of at most {@code threshold} elements, which are
+     * converted by {@code pool}.
+     */
+    public static void toStrings(long[] msb, long[] lsb, String[] out, ForkJoinPool pool, int threshold)
+    {
+        checkBulk(msb.length, lsb.length, out.length, threshold);
 
-                factory = fastFactory;
-            } catch (Throwable e) { // NOPMD
-                e.printStackTrace(); // NOPMD logging may not be available in static constructor of ness-core
+        if (msb.length <= threshold) {
+            toStrings(msb, lsb, out, 0, msb.length);
+        }
+        else {
+            pool.invoke(new ToStringsTask(msb, lsb, out, 0, msb.length, threshold));
+        }
+    }
+
+    private static void checkBulk(int length, int length1, int length2, int threshold)
+    {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive, was " + threshold);
+        }
+        if (length1 < length || length2 < length) {
+            throw new IllegalArgumentException(String.format("Output arrays must hold at least %d elements", length));
+        }
+    }
+
+    private static void fromStrings(String[] in, long[] msbOut, long[] lsbOut, int start, int end)
+    {
+        final long[] bits = new long[2];
+        for (int i = start; i < end; i++) {
+            parse(in[i], bits, 0);
+            msbOut[i] = bits[0];
+            lsbOut[i] = bits[1];
+        }
+    }
+
+    private static void toStrings(long[] msb, long[] lsb, String[] out, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            out[i] = toString(msb[i], lsb[i]);
+        }
+    }
+
+    private static class FromStringsTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] in;
+        private final long[] msbOut;
+        private final long[] lsbOut;
+        private final int start;
+        private final int end;
+        private final int threshold;
+
+        FromStringsTask(String[] in, long[] msbOut, long[] lsbOut, int start, int end, int threshold)
+        {
+            this.in = in;
+            this.msbOut = msbOut;
+            this.lsbOut = lsbOut;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= threshold) {
+                fromStrings(in, msbOut, lsbOut, start, end);
+            }
+            else {
+                final int mid = (start + end) >>> 1;
+                invokeAll(new FromStringsTask(in, msbOut, lsbOut, start, mid, threshold),
+                          new FromStringsTask(in, msbOut, lsbOut, mid, end, threshold));
             }
         }
-        STRING_FACTORY = factory;
+    }
+
+    private static class ToStringsTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] msb;
+        private final long[] lsb;
+        private final String[] out;
+        private final int start;
+        private final int end;
+        private final int threshold;
+
+        ToStringsTask(long[] msb, long[] lsb, String[] out, int start, int end, int threshold)
+        {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.out = out;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= threshold) {
+                toStrings(msb, lsb, out, start, end);
+            }
+            else {
+                final int mid = (start + end) >>> 1;
+                invokeAll(new ToStringsTask(msb, lsb, out, start, mid, threshold),
+                          new ToStringsTask(msb, lsb, out, mid, end, threshold));
+            }
+        }
+    }
+
+    /** Lazily created, so that users of the single UUID methods never start any threads. */
+    static class BulkPool
+    {
+        static final ForkJoinPool POOL = new ForkJoinPool();
     }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates random, version 4 UUIDs from a fast generator per thread.
+ *
+ * <p> {@link UUID#randomUUID()} draws from a single, shared {@link SecureRandom}, which turns into
+ * a point of contention when many threads create ids. Here, every thread has its own xoshiro256**
+ * generator with 256 bits of state, seeded once from {@link SecureRandom}.
+ * {@link java.util.concurrent.ThreadLocalRandom} only has 48 (JDK 7) or 64 (JDK 8 and later) bits of
+ * state, which makes collisions likely after about 2^24 or 2^32 UUIDs per seed. Here all 122 random
+ * bits count: as with {@link UUID#randomUUID()}, the first collision is expected after about 2^61 UUIDs.
+ *
+ * <p> The generator is not cryptographically strong: the UUIDs are predictable and must <b>not</b>
+ * be used as secrets, e.g. session or password reset tokens.
+ */
+public final class RandomUUIDGenerator
+{
+    private RandomUUIDGenerator() {}
+
+    /**
+     * Create a new version 4 UUID.
+     */
+    public static UUID nextUUID()
+    {
+        final Xoshiro256 random = Xoshiro256.current();
+        return new UUID(msb(random.nextLong()), lsb(random.nextLong()));
+    }
+
+    /**
+     * Create a new version 4 UUID and store the most significant bits in {@code dest[offset]}
+     * and the least significant bits in {@code dest[offset + 1]}.
+     */
+    public static void next(long [] dest, int offset)
+    {
+        final Xoshiro256 random = Xoshiro256.current();
+        dest[offset] = msb(random.nextLong());
+        dest[offset + 1] = lsb(random.nextLong());
+    }
+
+    /**
+     * Create {@code length} new version 4 UUIDs and store their bits in {@code msbOut} and {@code lsbOut},
+     * starting at {@code offset}.
+     */
+    public static void fill(long [] msbOut, long [] lsbOut, int offset, int length)
+    {
+        final Xoshiro256 random = Xoshiro256.current();
+        for (int i = offset; i < offset + length; i++) {
+            msbOut[i] = msb(random.nextLong());
+            lsbOut[i] = lsb(random.nextLong());
+        }
+    }
+
+    private static long msb(long random)
+    {
+        return (random & 0xffffffffffff0fffL) | 0x0000000000004000L;
+    }
+
+    private static long lsb(long random)
+    {
+        return (random & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * An immutable, sorted array of distinct UUIDs, kept in two parallel {@code long} arrays in the
+ * unsigned order of {@link UUIDArrays}. Needs 16 bytes per UUID, and lookups only touch the
+ * array of most significant bits until they are close to the UUID.
+ *
+ * <p> The index of an UUID is stable, so values can be kept in plain arrays next to it:
+ * <pre>
+ * SortedUUIDArray ids = SortedUUIDArray.copyOf(msb, lsb);
+ * long [] counts = new long [ids.size()];
+ * counts[ids.indexOf(uuid)]++;
+ * </pre>
+ *
+ * <p> {@link #subArray(int, int)}, {@link #range(long, long, long, long)} and
+ * {@link #timeRangeV7(long, long)} return views that share the arrays with this one.
+ */
+@Immutable
+public final class SortedUUIDArray
+{
+    private static final SortedUUIDArray EMPTY = new SortedUUIDArray(new long [0], new long [0], 0, 0);
+
+    /** Offset between the version 1 epoch (1582-10-15) and the unix epoch, in 100 ns units. */
+    private static final long V1_EPOCH_OFFSET = 0x01b21dd213814000L;
+
+    /** Version 7 UUIDs hold 48 bits of milliseconds. */
+    private static final long V7_MAX_MILLIS = (1L << 48) - 1;
+
+    private final long [] msb;
+    private final long [] lsb;
+    private final int offset;
+    private final int size;
+
+    private SortedUUIDArray(long [] msb, long [] lsb, int offset, int size)
+    {
+        this.msb = msb;
+        this.lsb = lsb;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static SortedUUIDArray of()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Sort a copy of the UUIDs in {@code msb} and {@code lsb} and remove duplicates.
+     */
+    public static SortedUUIDArray copyOf(long [] msb, long [] lsb)
+    {
+        if (msb.length != lsb.length) {
+            throw new IllegalArgumentException(String.format("Arrays must have the same length, was %d and %d", msb.length, lsb.length));
+        }
+        return sortedCopy(msb.clone(), lsb.clone());
+    }
+
+    /**
+     * Sort a copy of {@code length} UUIDs of {@code msb} and {@code lsb}, starting at {@code offset}, and remove
+     * duplicates.
+     */
+    public static SortedUUIDArray copyOf(long [] msb, long [] lsb, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > msb.length - length || offset > lsb.length - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds", offset, length));
+        }
+        return sortedCopy(Arrays.copyOfRange(msb, offset, offset + length), Arrays.copyOfRange(lsb, offset, offset + length));
+    }
+
+    public static SortedUUIDArray copyOf(Collection<UUID> uuids)
+    {
+        final long [] msb = new long [uuids.size()];
+        final long [] lsb = new long [msb.length];
+        int i = 0;
+        for (UUID uuid : uuids) {
+            msb[i] = uuid.getMostSignificantBits();
+            lsb[i] = uuid.getLeastSignificantBits();
+            i++;
+        }
+        return sortedCopy(msb, lsb);
+    }
+
+    public static SortedUUIDArray copyOf(UUIDSet uuids)
+    {
+        final long [] msb = new long [uuids.size()];
+        final long [] lsb = new long [msb.length];
+        final UUIDSet.Cursor cursor = uuids.cursor();
+        for (int i = 0; cursor.next(); i++) {
+            msb[i] = cursor.msb();
+            lsb[i] = cursor.lsb();
+        }
+        return sortedCopy(msb, lsb);
+    }
+
+    private static SortedUUIDArray sortedCopy(long [] msb, long [] lsb)
+    {
+        if (msb.length == 0) {
+            return EMPTY;
+        }
+
+        UUIDArrays.sort(msb, lsb);
+        int size = 1;
+        for (int i = 1; i < msb.length; i++) {
+            if (msb[i] != msb[size - 1] || lsb[i] != lsb[size - 1]) {
+                msb[size] = msb[i];
+                lsb[size] = lsb[i];
+                size++;
+            }
+        }
+        return new SortedUUIDArray(msb, lsb, 0, size);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public long msb(int index)
+    {
+        checkIndex(index);
+        return msb[offset + index];
+    }
+
+    public long lsb(int index)
+    {
+        checkIndex(index);
+        return lsb[offset + index];
+    }
+
+    public UUID uuid(int index)
+    {
+        checkIndex(index);
+        return new UUID(msb[offset + index], lsb[offset + index]);
+    }
+
+    /**
+     * Copy the most significant bits to {@code msbOut} and the least significant bits to {@code lsbOut}, starting
+     * at {@code destOffset}.
+     */
+    public void copyTo(long [] msbOut, long [] lsbOut, int destOffset)
+    {
+        System.arraycopy(msb, offset, msbOut, destOffset, size);
+        System.arraycopy(lsb, offset, lsbOut, destOffset, size);
+    }
+
+    // SEARCH
+
+    /**
+     * Find an UUID, using {@link UUIDArrays#interpolationSearch(long[], long[], int, int, long, long)}.
+     * @return the index of the UUID, or {@code -(insertion point) - 1} if it is not in the array.
+     */
+    public int indexOf(long msb, long lsb)
+    {
+        final int index = UUIDArrays.interpolationSearch(this.msb, this.lsb, offset, offset + size, msb, lsb);
+        return index >= 0 ? index - offset : index + offset;
+    }
+
+    public int indexOf(UUID uuid)
+    {
+        return indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public boolean contains(long msb, long lsb)
+    {
+        return indexOf(msb, lsb) >= 0;
+    }
+
+    public boolean contains(UUID uuid)
+    {
+        return contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns the index of the first UUID that is greater than or equal to the given one, or {@link #size()} if
+     * there is none.
+     */
+    public int ceilingIndex(long msb, long lsb)
+    {
+        final int index = indexOf(msb, lsb);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    // VIEWS
+
+    /**
+     * Returns a view of the UUIDs between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     */
+    public SortedUUIDArray subArray(int fromIndex, int toIndex)
+    {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size) {
+            throw new IndexOutOfBoundsException(String.format("range [%d, %d) out of bounds for size %d", fromIndex, toIndex, size));
+        }
+        if (fromIndex == 0 && toIndex == size) {
+            return this;
+        }
+        return new SortedUUIDArray(msb, lsb, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Returns a view of the UUIDs that are greater than or equal to {@code (fromMsb, fromLsb)} and less than
+     * {@code (toMsb, toLsb)}.
+     */
+    public SortedUUIDArray range(long fromMsb, long fromLsb, long toMsb, long toLsb)
+    {
+        final int fromIndex = ceilingIndex(fromMsb, fromLsb);
+        final int toIndex = ceilingIndex(toMsb, toLsb);
+        return subArray(fromIndex, Math.max(fromIndex, toIndex));
+    }
+
+    public SortedUUIDArray range(UUID fromInclusive, UUID toExclusive)
+    {
+        return range(fromInclusive.getMostSignificantBits(), fromInclusive.getLeastSignificantBits(),
+                     toExclusive.getMostSignificantBits(), toExclusive.getLeastSignificantBits());
+    }
+
+    // TIME
+
+    /**
+     * Returns a view of the version 7 UUIDs created between {@code fromMillis} (inclusive) and {@code toMillis}
+     * (exclusive), in milliseconds since the epoch. Version 7 UUIDs start with their timestamp, so these are
+     * a contiguous range found by two searches. The array must not contain UUIDs of other versions, or the ones
+     * whose first six bytes happen to fall into the time range are returned as well.
+     */
+    public SortedUUIDArray timeRangeV7(long fromMillis, long toMillis)
+    {
+        final long from = Math.max(0L, Math.min(fromMillis, V7_MAX_MILLIS + 1));
+        final long to = Math.max(0L, Math.min(toMillis, V7_MAX_MILLIS + 1));
+        if (from >= to) {
+            return subArray(0, 0);
+        }
+
+        final int fromIndex = ceilingIndex(from << 16, 0L);
+        // the end of the time range may be past the last possible timestamp
+        final int toIndex = to > V7_MAX_MILLIS ? size : ceilingIndex(to << 16, 0L);
+        return subArray(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the indexes of the version 1 UUIDs created between {@code fromMillis} (inclusive) and
+     * {@code toMillis} (exclusive), in milliseconds since the epoch, in ascending order.
+     *
+     * <p> Version 1 UUIDs start with the low 32 bits of their timestamp, so their order has nothing to do with
+     * their creation time. This scans the most significant bits of all UUIDs, which is sequential and does not
+     * create any objects, but takes time linear in the size of the array.
+     */
+    public int [] timeRangeV1(long fromMillis, long toMillis)
+    {
+        final long from = toV1Timestamp(fromMillis);
+        final long to = toV1Timestamp(toMillis);
+
+        int [] result = new int [16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            final long bits = msb[offset + i];
+            if ((bits & 0xf000L) != 0x1000L) {
+                continue;
+            }
+            final long timestamp = (bits & 0x0fffL) << 48 | ((bits >>> 16) & 0xffffL) << 32 | bits >>> 32;
+            if (timestamp >= from && timestamp < to) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** Converts milliseconds since the unix epoch to a 60 bit version 1 timestamp, clamped to the valid range. */
+    private static long toV1Timestamp(long millis)
+    {
+        final long min = -V1_EPOCH_OFFSET / 10000;
+        final long max = ((1L << 60) - V1_EPOCH_OFFSET) / 10000;
+        return Math.max(min, Math.min(millis, max)) * 10000 + V1_EPOCH_OFFSET;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("index (%d) out of bounds for size %d", index, size));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SortedUUIDArray[size=" + size + "]";
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates Strings from freshly filled arrays as cheaply as the running JDK allows.
+ *
+ * <p> This is the JDK 7 and 8 version. Strings are backed by a char array, so where possible
+ * the String takes ownership of the array through the package private {@code String(char[], boolean)}
+ * constructor instead of copying it. A multi-release jar replaces this class on JDK 9 and later
+ * (see {@code src/main/java9}), where that constructor does not exist.
+ *
+ * <p> Class initialization must stay cheap and quiet: no Guava, and no stack traces when the
+ * constructor is not there.
+ */
+final class StringFactory
+{
+    private StringFactory() {}
+
+    private static final MethodHandle FACTORY;
+
+    /**
+     * Create a String from a freshly filled char array. Where possible, the String
+     * takes ownership of the array instead of copying it, so the array must not be
+     * modified afterwards.
+     */
+    static String newString(char[] chars)
+    {
+        try {
+            return (String) FACTORY.invokeExact(chars);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Create the 36 character String of an UUID, with hex digit pairs looked up from {@code pairs}.
+     * Formats into a char array that the String takes over.
+     */
+    static String newUuidString(long msb, long lsb, char[] pairs)
+    {
+        final char[] chars = new char[36];
+        NessUUID.format(msb, lsb, chars, 0, pairs);
+        return newString(chars);
+    }
+
+    static {
+        MethodHandle factory;
+        try {
+            factory = MethodHandles.lookup().findConstructor(String.class, MethodType.methodType(void.class, char[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        final MethodHandle sharingFactory = findSharingFactory();
+        if (sharingFactory != null) {
+            factory = sharingFactory;
+        }
+        FACTORY = factory;
+    }
+
+    /**
+     * Returns a handle to {@code String(char[], boolean)} that has been checked to really share
+     * the array, or null if the constructor is missing, inaccessible or does not behave.
+     */
+    private static MethodHandle findSharingFactory()
+    {
+        try {
+            final Constructor<String> constructor = String.class.getDeclaredConstructor(char[].class, boolean.class);
+            constructor.setAccessible(true);
+
+            final MethodHandle factory = MethodHandles.insertArguments(
+                    MethodHandles.lookup().unreflectConstructor(constructor),
+                    1, true);
+
+            final char[] unsharedChars = "test".toCharArray();
+            final String testString = (String) factory.invokeExact(unsharedChars);
+            if (!"test".equals(testString)) {
+                return null;
+            }
+
+            unsharedChars[0] = 'r';
+            if (!"rest".equals(testString)) { // :O
+                return null;
+            }
+            return factory;
+        } catch (Throwable e) { // NOPMD not available on this JDK, use the copying constructor.
+            return null;
+        }
+    }
+}
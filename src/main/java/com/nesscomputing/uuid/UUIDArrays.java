@@ -0,0 +1,557 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting and searching of UUIDs stored in two parallel {@code long} arrays, the most
+ * significant bits in one and the least significant bits in the other.
+ *
+ * <p> All methods use the unsigned order of the 128 bits, which is the order of the 16 big
+ * endian bytes of the UUID and the order most databases use for their UUID types.
+ * {@link UUID#compareTo(UUID)} compares the two halves as signed numbers, so it puts
+ * {@code 80000000-...} before {@code 00000000-...}.
+ */
+public final class UUIDArrays
+{
+    private UUIDArrays() {}
+
+    /** Arrays with at least this many UUIDs are sorted in parallel by the default {@link #sort(long[], long[])}. */
+    public static final int DEFAULT_PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    /** Ranges and buckets below this size are sorted by insertion sort. */
+    private static final int INSERTION_SORT_THRESHOLD = 64;
+
+    private static final int RADIX = 256;
+
+    /** Ranges below this size are searched by bisection, interpolating is not worth the division. */
+    private static final int INTERPOLATION_MIN_WIDTH = 32;
+
+    /** Orders UUIDs like their big endian bytes, see {@link #compare(long, long, long, long)}. */
+    public static final Comparator<UUID> UNSIGNED_ORDER = new UnsignedOrder();
+
+    // COMPARE
+
+    /**
+     * Compare two UUIDs as unsigned 128 bit numbers.
+     */
+    public static int compare(long msb1, long lsb1, long msb2, long lsb2)
+    {
+        final int result = Long.compare(msb1 + Long.MIN_VALUE, msb2 + Long.MIN_VALUE);
+        return result != 0 ? result : Long.compare(lsb1 + Long.MIN_VALUE, lsb2 + Long.MIN_VALUE);
+    }
+
+    public static int compare(UUID uuid1, UUID uuid2)
+    {
+        return compare(uuid1.getMostSignificantBits(), uuid1.getLeastSignificantBits(),
+                       uuid2.getMostSignificantBits(), uuid2.getLeastSignificantBits());
+    }
+
+    private static class UnsignedOrder implements Comparator<UUID>, Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(UUID uuid1, UUID uuid2)
+        {
+            return UUIDArrays.compare(uuid1, uuid2);
+        }
+    }
+
+    // SORT
+
+    /**
+     * Sort the UUIDs in {@code msb} and {@code lsb} in unsigned order. The arrays must have the same length.
+     * Large arrays are sorted in parallel by a shared {@link ForkJoinPool}.
+     */
+    public static void sort(long [] msb, long [] lsb)
+    {
+        sort(msb, lsb, 0, msb.length, NessUUID.BulkPool.POOL, DEFAULT_PARALLEL_SORT_THRESHOLD);
+    }
+
+    /**
+     * Sort the UUIDs in {@code msb} and {@code lsb} between {@code fromIndex} (inclusive) and {@code toIndex}
+     * (exclusive) in unsigned order, using the calling thread only.
+     */
+    public static void sort(long [] msb, long [] lsb, int fromIndex, int toIndex)
+    {
+        checkRange(msb.length, lsb.length, fromIndex, toIndex);
+        radixSort(msb, lsb, fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Sort the UUIDs in {@code msb} and {@code lsb} between {@code fromIndex} (inclusive) and {@code toIndex}
+     * (exclusive) in unsigned order. Ranges of at least {@code threshold} UUIDs are split into chunks of
+     * {@code threshold} UUIDs, which are counted and distributed by {@code pool}.
+     *
+     * <p> This is a most significant digit radix sort over the sixteen bytes, which needs a scratch copy of the
+     * range. It distributes the UUIDs by their first byte, then every bucket by the next byte and so on, until
+     * the buckets are small enough for insertion sort. Random UUIDs are sorted after two or three passes instead
+     * of the sixteen a least significant digit sort needs. Leading bytes that are the same in all UUIDs, like the
+     * high timestamp bytes of time based UUIDs, are skipped.
+     */
+    public static void sort(long [] msb, long [] lsb, int fromIndex, int toIndex, ForkJoinPool pool, int threshold)
+    {
+        checkRange(msb.length, lsb.length, fromIndex, toIndex);
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive, was " + threshold);
+        }
+
+        final int length = toIndex - fromIndex;
+        if (length < threshold) {
+            radixSort(msb, lsb, fromIndex, length);
+        }
+        else {
+            new ParallelRadixSort(msb, lsb, fromIndex, length, threshold).sort(pool);
+        }
+    }
+
+    private static void radixSort(long [] msb, long [] lsb, int offset, int length)
+    {
+        if (length < INSERTION_SORT_THRESHOLD) {
+            insertionSort(msb, lsb, offset, offset + length);
+            return;
+        }
+
+        final int digit = firstDigit(msb, lsb, offset, offset + length);
+        if (digit >= 0) {
+            radixSort(msb, lsb, new long [length], new long [length], offset, offset + length, offset, digit);
+        }
+    }
+
+    /**
+     * Sort the UUIDs between {@code fromIndex} and {@code toIndex}, which are equal in all digits above
+     * {@code digit}. The scratch arrays hold the range at {@code fromIndex - scratchOffset}.
+     */
+    private static void radixSort(long [] msb, long [] lsb, long [] scratchMsb, long [] scratchLsb,
+                                  int fromIndex, int toIndex, int scratchOffset, int digit)
+    {
+        final int [] counts = new int [RADIX];
+        final int [] next = new int [RADIX];
+        int d = digit;
+
+        while (true) {
+            final long [] keys = d < 8 ? lsb : msb;
+            final int shift = (d & 7) << 3;
+            for (int i = fromIndex; i < toIndex; i++) {
+                counts[(int) (keys[i] >>> shift) & 0xff]++;
+            }
+            if (counts[(int) (keys[fromIndex] >>> shift) & 0xff] < toIndex - fromIndex) {
+                break;
+            }
+            if (d == 0) {
+                return;
+            }
+            // all UUIDs have the same byte here, nothing to distribute
+            Arrays.fill(counts, 0);
+            d--;
+        }
+
+        final int shift = (d & 7) << 3;
+        final long [] keys = d < 8 ? lsb : msb;
+        for (int b = 0, start = fromIndex - scratchOffset; b < RADIX; b++) {
+            next[b] = start;
+            start += counts[b];
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            final int to = next[(int) (keys[i] >>> shift) & 0xff]++;
+            scratchMsb[to] = msb[i];
+            scratchLsb[to] = lsb[i];
+        }
+        System.arraycopy(scratchMsb, fromIndex - scratchOffset, msb, fromIndex, toIndex - fromIndex);
+        System.arraycopy(scratchLsb, fromIndex - scratchOffset, lsb, fromIndex, toIndex - fromIndex);
+
+        if (d > 0) {
+            for (int b = 0, start = fromIndex; b < RADIX; b++) {
+                sortBucket(msb, lsb, scratchMsb, scratchLsb, start, start + counts[b], scratchOffset, d - 1);
+                start += counts[b];
+            }
+        }
+    }
+
+    private static void sortBucket(long [] msb, long [] lsb, long [] scratchMsb, long [] scratchLsb,
+                                   int fromIndex, int toIndex, int scratchOffset, int digit)
+    {
+        if (toIndex - fromIndex < INSERTION_SORT_THRESHOLD) {
+            insertionSort(msb, lsb, fromIndex, toIndex);
+        }
+        else {
+            radixSort(msb, lsb, scratchMsb, scratchLsb, fromIndex, toIndex, scratchOffset, digit);
+        }
+    }
+
+    private static void insertionSort(long [] msb, long [] lsb, int fromIndex, int toIndex)
+    {
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            final long m = msb[i];
+            final long l = lsb[i];
+            int j = i - 1;
+            while (j >= fromIndex && compare(msb[j], lsb[j], m, l) > 0) {
+                msb[j + 1] = msb[j];
+                lsb[j + 1] = lsb[j];
+                j--;
+            }
+            msb[j + 1] = m;
+            lsb[j + 1] = l;
+        }
+    }
+
+    /**
+     * Returns the most significant digit in which the UUIDs differ, or -1 if they are all equal. Digit 0 is the
+     * lowest byte of the least significant bits, digit 15 the highest byte of the most significant bits.
+     */
+    private static int firstDigit(long [] msb, long [] lsb, int fromIndex, int toIndex)
+    {
+        final long firstMsb = msb[fromIndex];
+        final long firstLsb = lsb[fromIndex];
+        long msbDiff = 0;
+        long lsbDiff = 0;
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            msbDiff |= msb[i] ^ firstMsb;
+            lsbDiff |= lsb[i] ^ firstLsb;
+        }
+        if (msbDiff != 0) {
+            return 8 + (63 - Long.numberOfLeadingZeros(msbDiff)) / 8;
+        }
+        if (lsbDiff != 0) {
+            return (63 - Long.numberOfLeadingZeros(lsbDiff)) / 8;
+        }
+        return -1;
+    }
+
+    /**
+     * The parallel version of the radix sort. The first digit is counted per chunk in parallel, then every chunk
+     * distributes its UUIDs to the scratch arrays, and finally the buckets are sorted in parallel.
+     */
+    private static class ParallelRadixSort
+    {
+        private final long [] msb;
+        private final long [] lsb;
+        private final int offset;
+        private final int length;
+        private final int chunkSize;
+        private final int [][] counts;
+        private final long [] scratchMsb;
+        private final long [] scratchLsb;
+        private int digit;
+
+        ParallelRadixSort(long [] msb, long [] lsb, int offset, int length, int chunkSize)
+        {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.offset = offset;
+            this.length = length;
+            this.chunkSize = chunkSize;
+            this.counts = new int [(int) ((length + (long) chunkSize - 1) / chunkSize)][RADIX];
+            this.scratchMsb = new long [length];
+            this.scratchLsb = new long [length];
+        }
+
+        void sort(ForkJoinPool pool)
+        {
+            digit = firstDigit(msb, lsb, offset, offset + length);
+            if (digit < 0) {
+                return;
+            }
+
+            pool.invoke(new ChunkTask(this, 0, counts.length, false));
+
+            // Turn the counts into the first scratch index of every chunk and byte value, and remember where the
+            // buckets end.
+            final int [] bucketEnds = new int [RADIX];
+            int next = 0;
+            for (int b = 0; b < RADIX; b++) {
+                for (int [] chunkCounts : counts) {
+                    final int count = chunkCounts[b];
+                    chunkCounts[b] = next;
+                    next += count;
+                }
+                bucketEnds[b] = next;
+            }
+
+            pool.invoke(new ChunkTask(this, 0, counts.length, true));
+            pool.invoke(new BucketTask(this, bucketEnds, 0, RADIX));
+        }
+
+        void countOrDistribute(int chunk, boolean distribute)
+        {
+            final int from = offset + chunk * chunkSize;
+            final int to = Math.min(from + chunkSize, offset + length);
+            final int [] chunkCounts = counts[chunk];
+            final int shift = (digit & 7) << 3;
+            final long [] keys = digit < 8 ? lsb : msb;
+
+            if (distribute) {
+                for (int i = from; i < to; i++) {
+                    final int next = chunkCounts[(int) (keys[i] >>> shift) & 0xff]++;
+                    scratchMsb[next] = msb[i];
+                    scratchLsb[next] = lsb[i];
+                }
+            }
+            else {
+                for (int i = from; i < to; i++) {
+                    chunkCounts[(int) (keys[i] >>> shift) & 0xff]++;
+                }
+            }
+        }
+
+        /** Copy a bucket back from the scratch arrays and sort it by the remaining digits. */
+        void sortBucket(int start, int end)
+        {
+            System.arraycopy(scratchMsb, start, msb, offset + start, end - start);
+            System.arraycopy(scratchLsb, start, lsb, offset + start, end - start);
+            if (digit > 0) {
+                UUIDArrays.sortBucket(msb, lsb, scratchMsb, scratchLsb, offset + start, offset + end, offset, digit - 1);
+            }
+        }
+    }
+
+    private static class ChunkTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ParallelRadixSort sort;
+        private final int fromChunk;
+        private final int toChunk;
+        private final boolean distribute;
+
+        ChunkTask(ParallelRadixSort sort, int fromChunk, int toChunk, boolean distribute)
+        {
+            this.sort = sort;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.distribute = distribute;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (toChunk - fromChunk == 1) {
+                sort.countOrDistribute(fromChunk, distribute);
+            }
+            else {
+                final int mid = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(sort, fromChunk, mid, distribute),
+                          new ChunkTask(sort, mid, toChunk, distribute));
+            }
+        }
+    }
+
+    private static class BucketTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ParallelRadixSort sort;
+        private final int [] bucketEnds;
+        private final int fromBucket;
+        private final int toBucket;
+
+        BucketTask(ParallelRadixSort sort, int [] bucketEnds, int fromBucket, int toBucket)
+        {
+            this.sort = sort;
+            this.bucketEnds = bucketEnds;
+            this.fromBucket = fromBucket;
+            this.toBucket = toBucket;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (toBucket - fromBucket == 1) {
+                sort.sortBucket(fromBucket == 0 ? 0 : bucketEnds[fromBucket - 1], bucketEnds[fromBucket]);
+            }
+            else {
+                final int mid = (fromBucket + toBucket) >>> 1;
+                invokeAll(new BucketTask(sort, bucketEnds, fromBucket, mid),
+                          new BucketTask(sort, bucketEnds, mid, toBucket));
+            }
+        }
+    }
+
+    // SEARCH
+
+    /**
+     * Search sorted arrays for an UUID with binary search.
+     * @return the index of the UUID if it is in the arrays, otherwise {@code -(insertion point) - 1}, like
+     * {@link java.util.Arrays#binarySearch(long[], long)}.
+     */
+    public static int binarySearch(long [] msb, long [] lsb, long keyMsb, long keyLsb)
+    {
+        return binarySearch(msb, lsb, 0, msb.length, keyMsb, keyLsb);
+    }
+
+    /**
+     * Search the range between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive) of sorted arrays for
+     * an UUID with binary search.
+     * @return the index of the UUID if it is in the range, otherwise {@code -(insertion point) - 1}.
+     */
+    public static int binarySearch(long [] msb, long [] lsb, int fromIndex, int toIndex, long keyMsb, long keyLsb)
+    {
+        checkRange(msb.length, lsb.length, fromIndex, toIndex);
+        return binarySearch0(msb, lsb, fromIndex, toIndex - 1, keyMsb, keyLsb);
+    }
+
+    /**
+     * Search sorted arrays for an UUID with interpolation search, see
+     * {@link #interpolationSearch(long[], long[], int, int, long, long)}.
+     */
+    public static int interpolationSearch(long [] msb, long [] lsb, long keyMsb, long keyLsb)
+    {
+        return interpolationSearch(msb, lsb, 0, msb.length, keyMsb, keyLsb);
+    }
+
+    /**
+     * Search the range between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive) of sorted arrays for
+     * an UUID by interpolating between the most significant bits at both ends of the range.
+     *
+     * <p> Random (version 4) UUIDs are spread evenly, so this takes about {@code log log n} steps instead of
+     * {@code log n}, and touches fewer cache lines than {@link #binarySearch(long[], long[], int, int, long, long)}.
+     * Every interpolated probe is followed by a second one about {@code sqrt(range)} further on, the usual error of
+     * the estimate, and by a bisection if the two did not halve the range. Badly distributed keys therefore cost
+     * at most three times as many probes as a binary search.
+     * @return the index of the UUID if it is in the range, otherwise {@code -(insertion point) - 1}.
+     */
+    public static int interpolationSearch(long [] msb, long [] lsb, int fromIndex, int toIndex, long keyMsb, long keyLsb)
+    {
+        checkRange(msb.length, lsb.length, fromIndex, toIndex);
+
+        final long key = keyMsb + Long.MIN_VALUE;
+        int low = fromIndex;
+        int high = toIndex - 1;
+
+        while (high - low >= INTERPOLATION_MIN_WIDTH) {
+            final long first = msb[low] + Long.MIN_VALUE;
+            final long last = msb[high] + Long.MIN_VALUE;
+            if (key < first) {
+                return -(low + 1);
+            }
+            if (key > last) {
+                return -(high + 2);
+            }
+            if (first == last) {
+                break;
+            }
+
+            final int width = high - low;
+            final double fraction = unsignedToDouble(key - first) / unsignedToDouble(last - first);
+            final int mid = low + Math.min(width, (int) (fraction * width));
+            final int cmp = compare(msb[mid], lsb[mid], keyMsb, keyLsb);
+            if (cmp == 0) {
+                return mid;
+            }
+
+            // The estimate is usually within sqrt(width) of the UUID, so probe there as well to move both ends.
+            final int step = (int) Math.sqrt(width) + 1;
+            if (cmp < 0) {
+                low = mid + 1;
+                final int guard = mid + step;
+                if (guard <= high) {
+                    final int guardCmp = compare(msb[guard], lsb[guard], keyMsb, keyLsb);
+                    if (guardCmp == 0) {
+                        return guard;
+                    }
+                    if (guardCmp > 0) {
+                        high = guard - 1;
+                    }
+                    else {
+                        low = guard + 1;
+                    }
+                }
+            }
+            else {
+                high = mid - 1;
+                final int guard = mid - step;
+                if (guard >= low) {
+                    final int guardCmp = compare(msb[guard], lsb[guard], keyMsb, keyLsb);
+                    if (guardCmp == 0) {
+                        return guard;
+                    }
+                    if (guardCmp < 0) {
+                        low = guard + 1;
+                    }
+                    else {
+                        high = guard - 1;
+                    }
+                }
+            }
+
+            if (high - low > width >>> 1) {
+                final int half = (low + high) >>> 1;
+                final int halfCmp = compare(msb[half], lsb[half], keyMsb, keyLsb);
+                if (halfCmp == 0) {
+                    return half;
+                }
+                if (halfCmp < 0) {
+                    low = half + 1;
+                }
+                else {
+                    high = half - 1;
+                }
+            }
+        }
+        return binarySearch0(msb, lsb, low, high, keyMsb, keyLsb);
+    }
+
+    private static int binarySearch0(long [] msb, long [] lsb, int low, int high, long keyMsb, long keyLsb)
+    {
+        final long key = keyMsb + Long.MIN_VALUE;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long value = msb[mid] + Long.MIN_VALUE;
+            if (value < key) {
+                low = mid + 1;
+            }
+            else if (value > key) {
+                high = mid - 1;
+            }
+            else {
+                final int cmp = Long.compare(lsb[mid] + Long.MIN_VALUE, keyLsb + Long.MIN_VALUE);
+                if (cmp < 0) {
+                    low = mid + 1;
+                }
+                else if (cmp > 0) {
+                    high = mid - 1;
+                }
+                else {
+                    return mid;
+                }
+            }
+        }
+        return -(low + 1);
+    }
+
+    /** Takes a difference of two values shifted by {@link Long#MIN_VALUE}, which is between 0 and 2^64 - 1. */
+    private static double unsignedToDouble(long value)
+    {
+        return (double) (value >>> 1) * 2.0;
+    }
+
+    private static void checkRange(int msbLength, int lsbLength, int fromIndex, int toIndex)
+    {
+        if (msbLength != lsbLength) {
+            throw new IllegalArgumentException(String.format("Arrays must have the same length, was %d and %d", msbLength, lsbLength));
+        }
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > msbLength) {
+            throw new IndexOutOfBoundsException(String.format("range [%d, %d) out of bounds for length %d", fromIndex, toIndex, msbLength));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import com.nesscomputing.callback.Callback;
+import com.nesscomputing.callback.CallbackRefusedException;
+
+/**
+ * A {@link Callback} for UUIDs that receives the most and least significant bits instead of an
+ * {@link java.util.UUID} object.
+ */
+public interface UUIDBitsCallback
+{
+    /**
+     * Process a single UUID.
+     *
+     * An implementation of this interface can throw {@link CallbackRefusedException} to signal the caller
+     * that it should stop executing the callback.
+     */
+    void call(long msb, long lsb) throws Exception;
+}
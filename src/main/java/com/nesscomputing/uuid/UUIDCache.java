@@ -0,0 +1,423 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache that hands out one shared {@link UUID} instance per UUID value, and the
+ * canonical String for it.
+ *
+ * <p> Meant for a small hot set of UUIDs (tenants, users) that is parsed and printed over and
+ * over. A canonical string that is in the cache is found by comparing text, without parsing
+ * it or allocating anything. Other spellings (upper case, missing leading zeros) are parsed
+ * with {@link NessUUID}, and then resolve to the same shared instance.
+ *
+ * <p> The cache is lock free. Entries live in two tables, one keyed by the text and one by the
+ * bits of the UUID. Each table is split into sets of four slots, and a new entry replaces a
+ * slot of its set that has not been used since the last time the set was full (CLOCK).
+ * Lookups only set a flag on the entry they find, so hits never write to the tables.
+ * Racing threads may both create an entry for the same UUID; one of them wins eventually,
+ * the cache never returns a wrong UUID.
+ *
+ * <p> Because an entry can only go into one set, some sets fill up before the cache does.
+ * Size the cache at least twice as large as the hot set to keep those conflicts rare.
+ */
+@ThreadSafe
+public final class UUIDCache
+{
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Slots per set. A new entry can only evict entries of its own set. */
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Entry> byText;
+    private final AtomicReferenceArray<Entry> byBits;
+
+    /** CLOCK hands, one per set. Racy on purpose, a lost update only moves the hand less. */
+    private final int [] textHands;
+    private final int [] bitsHands;
+    private final int setMask;
+
+    private final Counters counters = new Counters();
+
+    public UUIDCache()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of UUIDs to keep, rounded up to a power of two.
+     */
+    public UUIDCache(int capacity)
+    {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        if (capacity > 1 << 28) {
+            throw new IllegalArgumentException("Capacity must be at most " + (1 << 28) + ", was " + capacity);
+        }
+
+        int sets = 1;
+        while (sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.setMask = sets - 1;
+        this.byText = new AtomicReferenceArray<>(sets * WAYS);
+        this.byBits = new AtomicReferenceArray<>(sets * WAYS);
+        this.textHands = new int [sets];
+        this.bitsHands = new int [sets];
+    }
+
+    /** Returns the maximum number of UUIDs in the cache. */
+    public int capacity()
+    {
+        return byBits.length();
+    }
+
+    // FROM TEXT
+
+    /**
+     * Same as {@link NessUUID#fromString(String)}, but returns the cached instance.
+     * @throws IllegalArgumentException if the string is not a valid UUID.
+     */
+    public UUID fromString(String str)
+    {
+        final int base = textSet(str.hashCode());
+        for (int i = 0; i < WAYS; i++) {
+            final Entry entry = byText.get(base + i);
+            if (entry != null && entry.string.equals(str)) {
+                return hitText(entry).uuid;
+            }
+        }
+
+        final long [] bits = new long [2];
+        NessUUID.parse(str, bits, 0);
+        final Entry entry = resolve(bits[0], bits[1], null, false);
+        if (entry.string.equals(str)) {
+            insertText(entry);
+        }
+        return entry.uuid;
+    }
+
+    /**
+     * Same as {@link NessUUID#fromCharSequence(CharSequence, int, int)}, but returns the cached instance.
+     * @throws IllegalArgumentException if the characters are not a valid UUID.
+     */
+    public UUID fromCharSequence(CharSequence seq, int start, int end)
+    {
+        if (seq instanceof String && start == 0 && end == seq.length()) {
+            return fromString((String) seq);
+        }
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + seq.charAt(i);
+        }
+        final int base = textSet(hash);
+        for (int i = 0; i < WAYS; i++) {
+            final Entry entry = byText.get(base + i);
+            if (entry != null && matches(entry.string, seq, start, end)) {
+                return hitText(entry).uuid;
+            }
+        }
+
+        final long [] bits = new long [2];
+        NessUUID.parse(seq, start, end, bits, 0);
+        final Entry entry = resolve(bits[0], bits[1], null, false);
+        if (matches(entry.string, seq, start, end)) {
+            insertText(entry);
+        }
+        return entry.uuid;
+    }
+
+    /**
+     * Same as {@link NessUUID#fromBytes(byte[], int, int)}, but returns the cached instance.
+     * @throws IllegalArgumentException if the bytes are not a valid UUID.
+     */
+    public UUID fromBytes(byte [] bytes, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds for size %d", offset, length, bytes.length));
+        }
+
+        // same as String#hashCode, so ASCII bytes find the entries of the equal strings
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + (bytes[i] & 0xff);
+        }
+        final int base = textSet(hash);
+        for (int i = 0; i < WAYS; i++) {
+            final Entry entry = byText.get(base + i);
+            if (entry != null && matches(entry.string, bytes, offset, length)) {
+                return hitText(entry).uuid;
+            }
+        }
+
+        final long [] bits = new long [2];
+        NessUUID.parse(bytes, offset, length, bits, 0);
+        final Entry entry = resolve(bits[0], bits[1], null, false);
+        if (matches(entry.string, bytes, offset, length)) {
+            insertText(entry);
+        }
+        return entry.uuid;
+    }
+
+    // FROM BITS
+
+    /**
+     * Returns the cached instance for the given bits.
+     */
+    public UUID get(long msb, long lsb)
+    {
+        return resolve(msb, lsb, null, true).uuid;
+    }
+
+    /**
+     * Returns the cached instance that is equal to the given UUID. If there is none,
+     * the given UUID becomes the cached instance.
+     */
+    public UUID intern(UUID uuid)
+    {
+        return resolve(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), uuid, true).uuid;
+    }
+
+    // TO STRING
+
+    /**
+     * Same as {@link NessUUID#toString(UUID)}, but returns the cached String.
+     */
+    public String toString(UUID uuid)
+    {
+        return resolve(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), uuid, true).string;
+    }
+
+    // STATISTICS
+
+    /** Number of lookups that found their UUID in the cache. */
+    public long hitCount()
+    {
+        return counters.sum(Counters.HIT);
+    }
+
+    /** Number of lookups that had to create a new entry. */
+    public long missCount()
+    {
+        return counters.sum(Counters.MISS);
+    }
+
+    /** Number of entries that were replaced to make room for a new one, counted once per table. */
+    public long evictionCount()
+    {
+        return counters.sum(Counters.EVICTION);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("UUIDCache[capacity=%d, hits=%d, misses=%d, evictions=%d]", capacity(), hitCount(), missCount(), evictionCount());
+    }
+
+    // INTERNALS
+
+    /**
+     * Find the entry for the given bits, or create and cache one. {@code uuid} is the instance to
+     * cache if there is no entry yet, null creates a new one. Lookups by text pass false for
+     * {@code cacheText} and add the entry to the text table themselves if their text was canonical.
+     */
+    private Entry resolve(long msb, long lsb, UUID uuid, boolean cacheText)
+    {
+        final int base = bitsSet(msb, lsb);
+        for (int i = 0; i < WAYS; i++) {
+            final Entry entry = byBits.get(base + i);
+            if (entry != null && entry.msb == msb && entry.lsb == lsb) {
+                return hitBits(entry);
+            }
+        }
+
+        counters.increment(Counters.MISS);
+        final Entry entry = new Entry(msb, lsb, uuid != null ? uuid : new UUID(msb, lsb), NessUUID.toString(msb, lsb));
+        insert(byBits, bitsHands, base, entry, false);
+        if (cacheText) {
+            insertText(entry);
+        }
+        return entry;
+    }
+
+    private void insertText(Entry entry)
+    {
+        insert(byText, textHands, textSet(entry.string.hashCode()), entry, true);
+    }
+
+    private Entry hitText(Entry entry)
+    {
+        if (!entry.textReferenced) {
+            entry.textReferenced = true;
+        }
+        counters.increment(Counters.HIT);
+        return entry;
+    }
+
+    private Entry hitBits(Entry entry)
+    {
+        if (!entry.bitsReferenced) {
+            entry.bitsReferenced = true;
+        }
+        counters.increment(Counters.HIT);
+        return entry;
+    }
+
+    /**
+     * Put an entry into the set starting at {@code base}. Takes a free slot if there is one,
+     * otherwise sweeps the CLOCK hand over the set, clearing the referenced flags, until it
+     * finds an entry that has not been used since the last sweep.
+     */
+    private void insert(AtomicReferenceArray<Entry> table, int [] hands, int base, Entry entry, boolean text)
+    {
+        for (int i = 0; i < WAYS; i++) {
+            if (table.get(base + i) == null && table.compareAndSet(base + i, null, entry)) {
+                return;
+            }
+        }
+
+        final int set = base / WAYS;
+        final int hand = hands[set];
+        // two rounds: the first may only clear flags
+        for (int i = 0; i < 2 * WAYS; i++) {
+            final int slot = base + ((hand + i) & (WAYS - 1));
+            final Entry victim = table.get(slot);
+            if (victim == null || !(text ? victim.textReferenced : victim.bitsReferenced)) {
+                if (table.compareAndSet(slot, victim, entry)) {
+                    hands[set] = hand + i + 1;
+                    if (victim != null) {
+                        counters.increment(Counters.EVICTION);
+                    }
+                    return;
+                }
+            }
+            else if (text) {
+                victim.textReferenced = false;
+            }
+            else {
+                victim.bitsReferenced = false;
+            }
+        }
+        // every slot was busy or used again while sweeping, don't fight over it
+    }
+
+    private int textSet(int hash)
+    {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return (hash & setMask) * WAYS;
+    }
+
+    private int bitsSet(long msb, long lsb)
+    {
+        return ((int) UUIDHash.mix(msb, lsb) & setMask) * WAYS;
+    }
+
+    private static boolean matches(String string, CharSequence seq, int start, int end)
+    {
+        if (string.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (string.charAt(i - start) != seq.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String string, byte [] bytes, int offset, int length)
+    {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != (bytes[offset + i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry
+    {
+        final long msb;
+        final long lsb;
+        final UUID uuid;
+        final String string;
+        /** CLOCK flags, one per table, so that sweeping one table does not age the entry in the other. */
+        volatile boolean textReferenced;
+        volatile boolean bitsReferenced;
+
+        Entry(long msb, long lsb, UUID uuid, String string)
+        {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.uuid = uuid;
+            this.string = string;
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters, striped by thread so that threads hitting the
+     * cache at the same time do not all write to the same cache line.
+     */
+    private static final class Counters
+    {
+        static final int HIT = 0;
+        static final int MISS = 1;
+        static final int EVICTION = 2;
+
+        /** One stripe spans 128 bytes, so neighbouring stripes never share a cache line. */
+        private static final int STRIDE = 16;
+
+        private final AtomicLongArray counts;
+        private final int stripeMask;
+
+        Counters()
+        {
+            int stripes = 1;
+            while (stripes < 2 * Runtime.getRuntime().availableProcessors() && stripes < 64) {
+                stripes <<= 1;
+            }
+            this.stripeMask = stripes - 1;
+            this.counts = new AtomicLongArray(stripes * STRIDE);
+        }
+
+        void increment(int counter)
+        {
+            counts.incrementAndGet(((int) Thread.currentThread().getId() & stripeMask) * STRIDE + counter);
+        }
+
+        long sum(int counter)
+        {
+            long sum = 0;
+            for (int i = counter; i < counts.length(); i += STRIDE) {
+                sum += counts.get(i);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import com.nesscomputing.callback.Callback;
+import com.nesscomputing.callback.CallbackRefusedException;
+
+/**
+ * A binary file format for lists of UUIDs. Loading it does not parse anything, so a list of
+ * a hundred million UUIDs can be mapped with {@link MappedUUIDFile} or streamed at the speed
+ * of the disk instead of being parsed from text.
+ *
+ * <p> The file starts with a 16 byte header:
+ * <ul>
+ * <li>the magic number {@code NUID} (4 bytes),</li>
+ * <li>the format version, currently 1 (1 byte),</li>
+ * <li>flags (1 byte), bit 0 is set if the UUIDs are in unsigned ascending order, see {@link UUIDArrays},</li>
+ * <li>two reserved bytes, always zero,</li>
+ * <li>the number of UUIDs (8 bytes), or -1 while the file is being written.</li>
+ * </ul>
+ * It is followed by one 16 byte record for each UUID, the most significant bits followed by the
+ * least significant bits. All numbers are big endian, so a record holds the same bytes as the
+ * usual binary form of the UUID (e.g. a {@code uuid} column in PostgreSQL) and records are 16 byte
+ * aligned. A file that was not completely written still has a count of -1, and is rejected by the readers.
+ *
+ * <p> Files are written by {@link UUIDFileWriter}, and read either randomly by {@link MappedUUIDFile}
+ * or sequentially by the {@code stream} methods of this class.
+ */
+public final class UUIDFile
+{
+    private UUIDFile() {}
+
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 16;
+
+    /** "NUID" */
+    static final int MAGIC = 0x4e554944;
+    static final byte VERSION = 1;
+    static final byte FLAG_SORTED = 1;
+
+    /** The count of a file that is still being written. */
+    static final long INCOMPLETE = -1;
+
+    /** Size of the buffers used for reading and writing, 4096 records. */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    // WRITE
+
+    /**
+     * Write the UUIDs in {@code msb} and {@code lsb} to a new file, replacing an existing one.
+     */
+    public static void write(Path path, long [] msb, long [] lsb) throws IOException
+    {
+        write(path, msb, lsb, 0, msb.length);
+    }
+
+    /**
+     * Write {@code length} UUIDs of {@code msb} and {@code lsb}, starting at {@code offset}, to a new file,
+     * replacing an existing one.
+     */
+    public static void write(Path path, long [] msb, long [] lsb, int offset, int length) throws IOException
+    {
+        try (UUIDFileWriter writer = UUIDFileWriter.create(path)) {
+            writer.write(msb, lsb, offset, length);
+        }
+    }
+
+    /**
+     * Write the UUIDs of a {@link SortedUUIDArray} to a new file, replacing an existing one.
+     */
+    public static void write(Path path, SortedUUIDArray uuids) throws IOException
+    {
+        try (UUIDFileWriter writer = UUIDFileWriter.create(path)) {
+            for (int i = 0; i < uuids.size(); i++) {
+                writer.write(uuids.msb(i), uuids.lsb(i));
+            }
+        }
+    }
+
+    // STREAM
+
+    /**
+     * Read a file sequentially and call {@code callback} for every UUID, without creating UUID objects.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long stream(Path path, UUIDBitsCallback callback) throws Exception
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long count = readHeader(channel, 0).getLong(8);
+            checkLength(path, channel.size(), count);
+            channel.position(HEADER_SIZE);
+            return stream(channel, count, callback);
+        }
+    }
+
+    /**
+     * Read a file sequentially and call {@code callback} for every UUID.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long stream(Path path, Callback<UUID> callback) throws Exception
+    {
+        return stream(path, new UUIDObjectCallback(callback));
+    }
+
+    /**
+     * Read a file from a channel, e.g. a socket, and call {@code callback} for every UUID. The channel must be
+     * positioned at the start of the header, and is positioned after the last record when all UUIDs were read.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long stream(ReadableByteChannel channel, UUIDBitsCallback callback) throws Exception
+    {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(channel, header)) {
+            throw new EOFException("UUID file is shorter than its header");
+        }
+        return stream(channel, checkHeader(header).getLong(8), callback);
+    }
+
+    private static long stream(ReadableByteChannel channel, long count, UUIDBitsCallback callback) throws Exception
+    {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final LongBuffer longBuffer = buffer.asLongBuffer();
+        final long [] longs = new long [BUFFER_SIZE / 8];
+
+        long read = 0;
+        while (read < count) {
+            final int records = (int) Math.min(count - read, BUFFER_SIZE / RECORD_SIZE);
+            buffer.clear().limit(records * RECORD_SIZE);
+            if (!readFully(channel, buffer)) {
+                throw new EOFException(String.format("UUID file ended after %d of %d UUIDs (incomplete write?)", read + buffer.position() / RECORD_SIZE, count));
+            }
+            longBuffer.clear();
+            longBuffer.get(longs, 0, records * 2);
+
+            for (int i = 0; i < records * 2; i += 2) {
+                try {
+                    callback.call(longs[i], longs[i + 1]);
+                }
+                catch (CallbackRefusedException e) {
+                    return read + i / 2;
+                }
+            }
+            read += records;
+        }
+        return read;
+    }
+
+    private static class UUIDObjectCallback implements UUIDBitsCallback
+    {
+        private final Callback<UUID> callback;
+
+        UUIDObjectCallback(Callback<UUID> callback)
+        {
+            this.callback = callback;
+        }
+
+        @Override
+        public void call(long msb, long lsb) throws Exception
+        {
+            callback.call(new UUID(msb, lsb));
+        }
+    }
+
+    // HEADER
+
+    static ByteBuffer newHeader(long count, boolean sorted)
+    {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(VERSION).put(sorted ? FLAG_SORTED : 0).putShort((short) 0).putLong(count);
+        header.flip();
+        return header;
+    }
+
+    /** Read the header at {@code position} of a file, and check it. */
+    static ByteBuffer readHeader(FileChannel channel, long position) throws IOException
+    {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0) {
+                throw new EOFException("File is shorter than the UUID file header");
+            }
+        }
+        return checkHeader(header);
+    }
+
+    private static ByteBuffer checkHeader(ByteBuffer header) throws IOException
+    {
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(String.format("Not an UUID file, magic number is %08x", header.getInt(0)));
+        }
+        if (header.get(4) != VERSION) {
+            throw new IOException("Unsupported UUID file version " + header.get(4));
+        }
+        if (header.getLong(8) == INCOMPLETE) {
+            throw new IOException("UUID file is incomplete, its writer was not closed");
+        }
+        if (header.getLong(8) < 0 || header.getLong(8) > (Long.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+            throw new IOException("Invalid UUID count " + header.getLong(8));
+        }
+        return header;
+    }
+
+    static boolean isSorted(ByteBuffer header)
+    {
+        return (header.get(5) & FLAG_SORTED) != 0;
+    }
+
+    static void checkLength(Object source, long length, long count) throws IOException
+    {
+        if (length != HEADER_SIZE + count * RECORD_SIZE) {
+            throw new IOException(String.format("%s has %d bytes, but should hold %d UUIDs in %d bytes (incomplete write?)",
+                                                source, length, count, HEADER_SIZE + count * RECORD_SIZE));
+        }
+    }
+
+    /** Fill the buffer and flip it, returns false if the channel ended first. */
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
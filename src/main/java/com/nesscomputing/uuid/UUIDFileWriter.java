@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Writes a {@link UUIDFile}. UUIDs are buffered and written in blocks of 4096, the header with the final
+ * count and the sorted flag is written by {@link #close()}. Until then, the header has a count of -1 and
+ * readers reject the file.
+ */
+@NotThreadSafe
+public class UUIDFileWriter implements Closeable
+{
+    private final FileChannel channel;
+    private final long start;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(UUIDFile.BUFFER_SIZE);
+
+    private long count;
+    private boolean sorted = true;
+    private long lastMsb;
+    private long lastLsb;
+    private boolean closed;
+
+    /**
+     * Create a new file, or replace an existing one.
+     */
+    public static UUIDFileWriter create(Path path) throws IOException
+    {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new UUIDFileWriter(channel);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write to a channel, starting at its current position. The channel is closed by {@link #close()}.
+     */
+    public UUIDFileWriter(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        this.start = channel.position();
+        writeFully(UUIDFile.newHeader(UUIDFile.INCOMPLETE, false), start);
+    }
+
+    public void write(long msb, long lsb) throws IOException
+    {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (sorted && count > 0 && UUIDArrays.compare(lastMsb, lastLsb, msb, lsb) > 0) {
+            sorted = false;
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putLong(msb).putLong(lsb);
+        lastMsb = msb;
+        lastLsb = lsb;
+        count++;
+    }
+
+    public void write(UUID uuid) throws IOException
+    {
+        write(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Write {@code length} UUIDs of {@code msb} and {@code lsb}, starting at {@code offset}.
+     */
+    public void write(long [] msb, long [] lsb, int offset, int length) throws IOException
+    {
+        if (offset < 0 || length < 0 || offset > msb.length - length || offset > lsb.length - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds", offset, length));
+        }
+        for (int i = offset; i < offset + length; i++) {
+            write(msb[i], lsb[i]);
+        }
+    }
+
+    /**
+     * Returns the number of UUIDs written so far.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns true if all UUIDs written so far are in ascending order, see {@link UUIDArrays}.
+     */
+    public boolean isSorted()
+    {
+        return sorted;
+    }
+
+    /**
+     * Write the remaining UUIDs and the header, and close the channel. The data is not forced to the disk.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            writeFully(UUIDFile.newHeader(count, sorted), start);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        writeFully(buffer, start + UUIDFile.HEADER_SIZE + (count - buffer.remaining() / UUIDFile.RECORD_SIZE) * UUIDFile.RECORD_SIZE);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source, long position) throws IOException
+    {
+        long next = position;
+        while (source.hasRemaining()) {
+            next += channel.write(source, next);
+        }
+    }
+}
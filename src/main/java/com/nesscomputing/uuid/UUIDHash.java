@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+/**
+ * Hashing for the UUID tables and caches.
+ */
+final class UUIDHash
+{
+    private UUIDHash() {}
+
+    /**
+     * Mix all 128 bits into a well distributed 64 bit hash. {@link java.util.UUID#hashCode()}
+     * only XORs the four ints, so e.g. time based UUIDs that differ in a few bits collide in
+     * large groups; here every input bit affects every output bit.
+     */
+    static long mix(long msb, long lsb)
+    {
+        long hash = (msb * 0x9e3779b97f4a7c15L) ^ lsb;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A map from UUIDs to objects. The keys are stored as pairs of longs, so an entry costs
+ * 20 or 24 bytes per slot (depending on the reference size) instead of a node, an UUID and
+ * the boxing of a {@code HashMap<UUID, V>}.
+ *
+ * <p> Null values are not allowed, {@link #get(long, long)} returns null for absent keys.
+ * Iterate with a {@link Cursor}, see {@link UUIDSet}.
+ */
+@NotThreadSafe
+public class UUIDObjectMap<V> extends AbstractUUIDHashTable
+{
+    private Object [] values;
+
+    public UUIDObjectMap()
+    {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize number of entries the map can hold without growing.
+     */
+    public UUIDObjectMap(int expectedSize)
+    {
+        super(expectedSize);
+        this.values = new Object [n + 1];
+    }
+
+    /**
+     * Returns the value for the key, or null.
+     */
+    @CheckForNull
+    public V get(long msb, long lsb)
+    {
+        final int slot = find(msb, lsb);
+        return slot < 0 ? null : value(slot);
+    }
+
+    @CheckForNull
+    public V get(UUID key)
+    {
+        return get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    public boolean containsKey(long msb, long lsb)
+    {
+        return find(msb, lsb) >= 0;
+    }
+
+    public boolean containsKey(UUID key)
+    {
+        return containsKey(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Associate the key with a value.
+     * @return the previous value, or null.
+     */
+    @CheckForNull
+    public V put(long msb, long lsb, V value)
+    {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not allowed");
+        }
+        final int slot = insert(msb, lsb);
+        if (slot >= 0) {
+            final V previous = value(slot);
+            values[slot] = value;
+            return previous;
+        }
+        values[-slot - 1] = value;
+        added();
+        return null;
+    }
+
+    @CheckForNull
+    public V put(UUID key, V value)
+    {
+        return put(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    /**
+     * Remove the key.
+     * @return the previous value, or null.
+     */
+    @CheckForNull
+    public V remove(long msb, long lsb)
+    {
+        final int slot = find(msb, lsb);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = value(slot);
+        removeAt(slot);
+        return previous;
+    }
+
+    @CheckForNull
+    public V remove(UUID key)
+    {
+        return remove(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns a cursor over all entries, in no particular order. The map must not be modified
+     * while the cursor is in use, except through {@link Cursor#setValue(Object)}.
+     */
+    public Cursor<V> cursor()
+    {
+        return new Cursor<V>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    V value(int slot)
+    {
+        return (V) values[slot];
+    }
+
+    @Override
+    Object values()
+    {
+        return values;
+    }
+
+    @Override
+    void allocateValues(int length)
+    {
+        values = new Object [length];
+    }
+
+    @Override
+    void copyValue(Object oldValues, int from, int to)
+    {
+        values[to] = ((Object []) oldValues)[from];
+    }
+
+    @Override
+    void moveValue(int from, int to)
+    {
+        values[to] = values[from];
+        values[from] = null;
+    }
+
+    @Override
+    void clearValue(int slot)
+    {
+        values[slot] = null;
+    }
+
+    @Override
+    void clearValues()
+    {
+        Arrays.fill(values, null);
+    }
+
+    public static final class Cursor<V> extends SlotCursor
+    {
+        private final UUIDObjectMap<V> map;
+
+        Cursor(UUIDObjectMap<V> map)
+        {
+            super(map);
+            this.map = map;
+        }
+
+        public V value()
+        {
+            return map.value(slot);
+        }
+
+        public void setValue(V value)
+        {
+            if (value == null) {
+                throw new IllegalArgumentException("Null values are not allowed");
+            }
+            map.values[slot] = value;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import com.nesscomputing.callback.CallbackRefusedException;
+
+/**
+ * Finds canonical UUIDs ({@code 8-4-4-4-12} hex digits, in any case) in text, e.g. log files,
+ * and reports each one with its offset to a {@link MatchCallback}. Only UUIDs that are not part
+ * of a longer run of hex digits are reported, so the 36 characters must not be preceded or
+ * followed by a hex digit; {@code id=6f32f693-c7b5-11e1-afa7-88af2abc9a66,} matches,
+ * {@code 06f32f693-c7b5-11e1-afa7-88af2abc9a66} does not.
+ *
+ * <p> The scan looks at the last character of the next possible UUID first. Most text is not
+ * hex digits or dashes, and then no UUID can cover that character, so the scan skips 36
+ * characters at a time. Candidates are decoded in place by the canonical decoder of
+ * {@link NessUUID}, nothing is allocated per match.
+ */
+public final class UUIDScanner
+{
+    private UUIDScanner() {}
+
+    /** Receives the UUIDs found by a scan. */
+    public interface MatchCallback
+    {
+        /**
+         * Called for every UUID found, in the order of the input.
+         *
+         * An implementation of this interface can throw {@link CallbackRefusedException} to stop the scan.
+         *
+         * @param offset the index of the first character of the UUID, see the scan methods.
+         */
+        void call(long offset, long msb, long lsb) throws Exception;
+    }
+
+    private static final int LENGTH = 36;
+
+    /** Size of the buffer used for reading from a channel. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte OTHER = 0;
+    private static final byte DASH = 1;
+    private static final byte HEX = 2;
+
+    /** Classifies ASCII (or Latin-1) characters. */
+    private static final byte [] CLASSES = new byte [256];
+
+    static {
+        for (int c = 0; c < 256; c++) {
+            CLASSES[c] = NessUUID.nibble((char) c) >= 0 ? HEX : OTHER;
+        }
+        CLASSES['-'] = DASH;
+    }
+
+    /**
+     * Scan a whole character sequence. Offsets are indexes into the sequence.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long scan(CharSequence seq, MatchCallback callback) throws Exception
+    {
+        return scan(seq, 0, seq.length(), callback);
+    }
+
+    /**
+     * Scan the characters between {@code start} (inclusive) and {@code end} (exclusive) of a sequence, as if
+     * there was nothing before or after them. Offsets are indexes into the sequence.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long scan(CharSequence seq, int start, int end, MatchCallback callback) throws Exception
+    {
+        checkRange(seq.length(), start, end - start);
+        final Scan scan = new Scan(callback);
+
+        int pos = start;
+        while (pos <= end - LENGTH) {
+            final int last = pos + LENGTH - 1;
+            if (classOf(seq.charAt(last)) == OTHER) {
+                pos = last + 1;
+                continue;
+            }
+
+            // Every UUID starting between pos and last covers last, so it starts in the run of hex digits and
+            // dashes around last, either at the start of the run or right after a dash.
+            int run = last;
+            while (run > pos && classOf(seq.charAt(run - 1)) != OTHER) {
+                run--;
+            }
+            int next = last + 1;
+            for (int s = run; s <= last && s <= end - LENGTH; s++) {
+                if ((s == run || seq.charAt(s - 1) == '-') && matches(seq, start, end, s, scan.bits)) {
+                    if (!scan.found(s, scan.bits)) {
+                        return scan.accepted;
+                    }
+                    next = s + LENGTH;
+                    break;
+                }
+            }
+            pos = next;
+        }
+        return scan.accepted;
+    }
+
+    /**
+     * Scan {@code length} ASCII encoded bytes, starting at {@code offset}, as if there was nothing before or
+     * after them. Offsets are indexes into the array.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long scan(byte [] bytes, int offset, int length, MatchCallback callback) throws Exception
+    {
+        checkRange(bytes.length, offset, length);
+        final Scan scan = new Scan(callback);
+        scan(bytes, offset, offset, offset + length, true, 0, scan);
+        return scan.accepted;
+    }
+
+    /**
+     * Scan the ASCII encoded bytes between the position and the limit of a buffer, as if there was nothing
+     * before or after them. Offsets are indexes into the buffer, its position is not changed.
+     * Stops if {@link CallbackRefusedException} is thrown.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long scan(ByteBuffer buffer, MatchCallback callback) throws Exception
+    {
+        final Scan scan = new Scan(callback);
+        final int start = buffer.position();
+        final int end = buffer.limit();
+
+        if (buffer.hasArray()) {
+            final int arrayOffset = buffer.arrayOffset();
+            scan(buffer.array(), arrayOffset + start, arrayOffset + start, arrayOffset + end, true, -arrayOffset, scan);
+            return scan.accepted;
+        }
+
+        int pos = start;
+        while (pos <= end - LENGTH) {
+            final int last = pos + LENGTH - 1;
+            if (CLASSES[buffer.get(last) & 0xff] == OTHER) {
+                pos = last + 1;
+                continue;
+            }
+
+            int run = last;
+            while (run > pos && CLASSES[buffer.get(run - 1) & 0xff] != OTHER) {
+                run--;
+            }
+            int next = last + 1;
+            for (int s = run; s <= last && s <= end - LENGTH; s++) {
+                if ((s == run || buffer.get(s - 1) == '-') && matches(buffer, start, end, s, scan.bits)) {
+                    if (!scan.found(s, scan.bits)) {
+                        return scan.accepted;
+                    }
+                    next = s + LENGTH;
+                    break;
+                }
+            }
+            pos = next;
+        }
+        return scan.accepted;
+    }
+
+    /**
+     * Scan everything that can be read from a channel, until its end. Offsets count the bytes read from the
+     * channel, so inputs larger than 2 GB are fine. UUIDs that are split over several reads are found as well.
+     * Stops if {@link CallbackRefusedException} is thrown, the channel is left where the scan stopped reading.
+     * @return the number of UUIDs the callback accepted.
+     */
+    public static long scan(ReadableByteChannel channel, MatchCallback callback) throws Exception
+    {
+        final Scan scan = new Scan(callback);
+        final byte [] bytes = new byte [BUFFER_SIZE];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long base = 0;
+        int pos = 0;
+
+        while (true) {
+            final boolean eof = channel.read(buffer) < 0;
+            if (!eof && buffer.hasRemaining()) {
+                continue;
+            }
+
+            final int filled = buffer.position();
+            pos = scan(bytes, 0, pos, filled, eof, base, scan);
+            if (eof || scan.refused) {
+                return scan.accepted;
+            }
+
+            // Keep the bytes that may start an UUID, and the one before them, which decides whether an UUID
+            // starts there.
+            final int keep = Math.max(pos - 1, 0);
+            System.arraycopy(bytes, keep, bytes, 0, filled - keep);
+            buffer.position(filled - keep);
+            base += keep;
+            pos -= keep;
+        }
+    }
+
+    /**
+     * Scan the bytes between {@code from} and {@code end}. {@code bytes[start]} is the first byte of the input.
+     * If {@code last} is false, more input follows {@code end} and UUIDs that can not be decided yet are left
+     * for the next call.
+     * @return the index of the first byte that may still start an UUID.
+     */
+    private static int scan(byte [] bytes, int start, int from, int end, boolean last, long base, Scan scan) throws Exception
+    {
+        // Without the byte after an UUID, it is not known whether the UUID ends there.
+        final int maxStart = last ? end - LENGTH : end - LENGTH - 1;
+        int pos = from;
+        while (pos <= maxStart) {
+            final int lastByte = pos + LENGTH - 1;
+            if (CLASSES[bytes[lastByte] & 0xff] == OTHER) {
+                pos = lastByte + 1;
+                continue;
+            }
+
+            int run = lastByte;
+            while (run > pos && CLASSES[bytes[run - 1] & 0xff] != OTHER) {
+                run--;
+            }
+            int next = Math.min(lastByte, maxStart) + 1;
+            for (int s = run; s < next; s++) {
+                if ((s == run || bytes[s - 1] == '-') && matches(bytes, start, end, s, scan.bits)) {
+                    if (!scan.found(base + s, scan.bits)) {
+                        return s + LENGTH;
+                    }
+                    next = s + LENGTH;
+                    break;
+                }
+            }
+            pos = next;
+        }
+        return pos;
+    }
+
+    // MATCH
+
+    /**
+     * Returns true if the 36 characters at {@code s} are a canonical UUID that is not part of a longer hex run,
+     * and stores its bits in {@code dest}.
+     */
+    private static boolean matches(CharSequence seq, int start, int end, int s, long [] dest)
+    {
+        if ((s > start && classOf(seq.charAt(s - 1)) == HEX) || (s + LENGTH < end && classOf(seq.charAt(s + LENGTH)) == HEX)) {
+            return false;
+        }
+        return NessUUID.decodeCanonical(seq, s, dest, 0);
+    }
+
+    private static boolean matches(byte [] bytes, int start, int end, int s, long [] dest)
+    {
+        if ((s > start && CLASSES[bytes[s - 1] & 0xff] == HEX) || (s + LENGTH < end && CLASSES[bytes[s + LENGTH] & 0xff] == HEX)) {
+            return false;
+        }
+        return NessUUID.decodeCanonical(bytes, s, dest, 0);
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, int s, long [] dest)
+    {
+        if ((s > start && CLASSES[buffer.get(s - 1) & 0xff] == HEX) || (s + LENGTH < end && CLASSES[buffer.get(s + LENGTH) & 0xff] == HEX)) {
+            return false;
+        }
+        return NessUUID.decodeCanonical(buffer, s, dest, 0);
+    }
+
+    private static byte classOf(char c)
+    {
+        return c < 256 ? CLASSES[c] : OTHER;
+    }
+
+    private static void checkRange(int size, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(String.format("offset (%d) and length (%d) out of bounds for size %d", offset, length, size));
+        }
+    }
+
+    /** The state of one scan, so that reporting a match does not allocate anything. */
+    private static final class Scan
+    {
+        final MatchCallback callback;
+        final long [] bits = new long [2];
+        long accepted;
+        boolean refused;
+
+        Scan(MatchCallback callback)
+        {
+            this.callback = callback;
+        }
+
+        /** Returns false if the callback refused the UUID. */
+        boolean found(long offset, long [] uuid) throws Exception
+        {
+            try {
+                callback.call(offset, uuid[0], uuid[1]);
+            }
+            catch (CallbackRefusedException e) {
+                refused = true;
+                return false;
+            }
+            accepted++;
+            return true;
+        }
+    }
+}
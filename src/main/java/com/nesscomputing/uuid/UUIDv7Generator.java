@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Generates time ordered, version 7 UUIDs (RFC 9562). The layout is
+ * <ul>
+ * <li>48 bits of milliseconds since the epoch,</li>
+ * <li>the version (7),</li>
+ * <li>a 12 bit counter for UUIDs created in the same millisecond,</li>
+ * <li>the variant (2) and 62 random bits.</li>
+ * </ul>
+ *
+ * <p> Keys created this way are roughly ordered by creation time, so they are appended to the
+ * end of B-tree indexes instead of touching random pages like version 4 keys.
+ *
+ * <p> There is no shared state: every thread keeps its own timestamp and counter, so the
+ * most significant bits of all UUIDs generated by one thread strictly increase, even if the
+ * clock goes backwards or more than 4096 UUIDs are created in one millisecond (the timestamp
+ * runs ahead of the clock in that case). UUIDs from different threads are distinguished by
+ * the 62 random bits. They come from the same per-thread generator with 256 bits of state as
+ * {@link RandomUUIDGenerator}, so all of them count, but they are <b>not</b> suitable as secrets.
+ */
+public final class UUIDv7Generator
+{
+    private UUIDv7Generator() {}
+
+    private static final int COUNTER_MASK = 0xfff;
+
+    /** A new millisecond starts the counter in the lower half, so there is room to count up. */
+    private static final int COUNTER_SEED_BOUND = 0x800;
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue()
+        {
+            return new State();
+        }
+    };
+
+    /**
+     * Create a new version 7 UUID.
+     */
+    public static UUID nextUUID()
+    {
+        final long [] bits = new long [2];
+        next(bits, 0);
+        return new UUID(bits[0], bits[1]);
+    }
+
+    /**
+     * Create a new version 7 UUID and store the most significant bits in {@code dest[offset]}
+     * and the least significant bits in {@code dest[offset + 1]}.
+     */
+    public static void next(long [] dest, int offset)
+    {
+        next(STATE.get(), System.currentTimeMillis(), Xoshiro256.current(), dest, offset);
+    }
+
+    /**
+     * Create {@code length} new version 7 UUIDs and store their bits in {@code msbOut} and {@code lsbOut}, starting at
+     * {@code offset}. The UUIDs are in ascending order.
+     */
+    public static void fill(long [] msbOut, long [] lsbOut, int offset, int length)
+    {
+        final State state = STATE.get();
+        final Xoshiro256 random = Xoshiro256.current();
+        final long [] bits = new long [2];
+        for (int i = offset; i < offset + length; i++) {
+            next(state, System.currentTimeMillis(), random, bits, 0);
+            msbOut[i] = bits[0];
+            lsbOut[i] = bits[1];
+        }
+    }
+
+    /**
+     * Returns the creation time, in milliseconds since the epoch, of a version 7 UUID.
+     */
+    public static long getTimestamp(UUID uuid)
+    {
+        return getTimestamp(uuid.getMostSignificantBits());
+    }
+
+    /**
+     * Returns the creation time, in milliseconds since the epoch, of the most significant bits of a version 7 UUID.
+     */
+    public static long getTimestamp(long msb)
+    {
+        return msb >>> 16;
+    }
+
+    @VisibleForTesting
+    static void next(State state, long now, Xoshiro256 random, long [] dest, int offset)
+    {
+        if (now > state.millis) {
+            state.millis = now;
+            state.counter = counterSeed(random);
+        }
+        else if (++state.counter > COUNTER_MASK) {
+            // Counter exhausted (or the clock went backwards for a while), borrow the next millisecond.
+            state.millis++;
+            state.counter = counterSeed(random);
+        }
+
+        dest[offset] = (state.millis << 16) | 0x7000L | state.counter;
+        dest[offset + 1] = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    }
+
+    private static int counterSeed(Xoshiro256 random)
+    {
+        // the high bits, COUNTER_SEED_BOUND is a power of two
+        return (int) (random.nextLong() >>> 32) & (COUNTER_SEED_BOUND - 1);
+    }
+
+    @VisibleForTesting
+    static class State
+    {
+        long millis = Long.MIN_VALUE;
+        int counter;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.security.SecureRandom;
+
+/**
+ * xoshiro256** by David Blackman and Sebastiano Vigna, see http://prng.di.unimi.it/. A fast generator with
+ * 256 bits of state, for the random bits of {@link RandomUUIDGenerator} and {@link UUIDv7Generator}. Every thread
+ * has its own instance, seeded once from {@link SecureRandom}. Not cryptographically strong.
+ */
+final class Xoshiro256
+{
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    private static final ThreadLocal<Xoshiro256> CURRENT = new ThreadLocal<Xoshiro256>() {
+        @Override
+        protected Xoshiro256 initialValue()
+        {
+            return new Xoshiro256(SEEDS);
+        }
+    };
+
+    /**
+     * Returns the generator of the current thread.
+     */
+    static Xoshiro256 current()
+    {
+        return CURRENT.get();
+    }
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    Xoshiro256(long s0, long s1, long s2, long s3)
+    {
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    Xoshiro256(SecureRandom seeds)
+    {
+        // the all zero state is the only one that does not work
+        do {
+            s0 = seeds.nextLong();
+            s1 = seeds.nextLong();
+            s2 = seeds.nextLong();
+            s3 = seeds.nextLong();
+        } while ((s0 | s1 | s2 | s3) == 0);
+    }
+
+    long nextLong()
+    {
+        final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        final long t = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+
+        return result;
+    }
+}
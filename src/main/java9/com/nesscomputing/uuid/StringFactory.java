@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Creates Strings from freshly filled arrays as cheaply as the running JDK allows.
+ *
+ * <p> This is the JDK 9 and later version, packaged in {@code META-INF/versions/9} of the
+ * multi-release jar. Compact strings store Latin-1 text in a byte array, so decoding ASCII
+ * bytes as ISO-8859-1 is a single array copy, while a char array would have to be compressed
+ * first. No reflection is needed, so class initialization does nothing.
+ */
+final class StringFactory
+{
+    private StringFactory() {}
+
+    /**
+     * Create a String from a freshly filled char array.
+     */
+    static String newString(char[] chars)
+    {
+        return new String(chars);
+    }
+
+    /**
+     * Create the 36 character String of an UUID, with hex digit pairs looked up from {@code pairs}.
+     * Formats into ASCII bytes, which become the Latin-1 array of the String with a single copy.
+     */
+    static String newUuidString(long msb, long lsb, char[] pairs)
+    {
+        final byte[] bytes = new byte[36];
+        NessUUID.format(msb, lsb, bytes, 0, pairs);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import static com.google.common.collect.ImmutableList.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class TestConcurrentBatchingCallback
+{
+    private static final int THREADS = 8;
+    private static final int ITEMS_PER_THREAD = 50000;
+
+    @Test
+    public void testBatching() throws Exception
+    {
+        for (boolean ordered : new boolean [] { false, true }) {
+            final CallbackCollector<List<String>> collector = new CallbackCollector<>();
+            try (BatchingCallback<String> batcher = BatchingCallback.batchIntoConcurrently(2, collector, ordered)) {
+                batcher.call("a");
+                batcher.call("b");
+                batcher.call("c");
+                batcher.commit();
+                batcher.commit();
+                batcher.call("d");
+                batcher.call("e");
+                batcher.call("f");
+            }
+
+            assertEquals(of(
+                    of("a", "b"),
+                    of("c"),
+                    of("d", "e"),
+                    of("f")
+                ), collector.getItems());
+        }
+    }
+
+    @Test
+    public void testCallbackRefused() throws Exception
+    {
+        final List<Collection<String>> items = Lists.newArrayList();
+        Callback<Collection<String>> callback = new Callback<Collection<String>>() {
+            @Override
+            public void call(Collection<String> item) throws Exception
+            {
+                if (items.size() > 1) {
+                    throw new CallbackRefusedException();
+                }
+                items.add(item);
+            }
+        };
+
+        try (BatchingCallback<String> batcher = BatchingCallback.<String>batchIntoConcurrently(2, callback, true)) {
+            Callbacks.stream(batcher, "a", "b", "c", "d", "e", "f", "g");
+        }
+
+        assertEquals(of(
+                of("a", "b"),
+                of("c", "d")
+            ), items);
+    }
+
+    @Test
+    public void testOrdered() throws Exception
+    {
+        final AtomicInteger delivering = new AtomicInteger();
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+        final Callback<List<Integer>> out = new Callback<List<Integer>>() {
+            @Override
+            public void call(List<Integer> batch) throws Exception
+            {
+                assertEquals(1, delivering.incrementAndGet());
+                assertTrue(batch.size() <= 64);
+                items.addAll(batch);
+                delivering.decrementAndGet();
+            }
+        };
+
+        final BatchingCallback<Integer> batcher = BatchingCallback.batchIntoConcurrently(64, out, true);
+        produce(batcher);
+
+        // every thread's items arrive in the order they were added
+        final int [] last = new int [THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            last[i] = -1;
+        }
+        for (int item : items) {
+            final int thread = item / ITEMS_PER_THREAD;
+            assertTrue(item > last[thread]);
+            last[thread] = item;
+        }
+        assertAll(items);
+    }
+
+    @Test
+    public void testUnordered() throws Exception
+    {
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+        final Callback<List<Integer>> out = new Callback<List<Integer>>() {
+            @Override
+            public void call(List<Integer> batch) throws Exception
+            {
+                assertTrue(batch.size() <= 100);
+                items.addAll(batch);
+            }
+        };
+
+        final BatchingCallback<Integer> batcher = BatchingCallback.batchIntoConcurrently(100, out, false);
+        produce(batcher);
+        assertAll(items);
+    }
+
+    /** Add all items from several threads, while another one keeps committing. */
+    private static void produce(final BatchingCallback<Integer> batcher) throws Exception
+    {
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int first = t * ITEMS_PER_THREAD;
+            threads.add(new Thread() {
+                @Override
+                public void run()
+                {
+                    try {
+                        for (int i = first; i < first + ITEMS_PER_THREAD; i++) {
+                            batcher.call(i);
+                        }
+                    } catch (CallbackRefusedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final Thread committer = new Thread() {
+            @Override
+            public void run()
+            {
+                while (!done.get()) {
+                    batcher.commit();
+                    Thread.yield();
+                }
+            }
+        };
+        committer.start();
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        committer.join();
+        batcher.close();
+    }
+
+    private static void assertAll(List<Integer> items)
+    {
+        assertEquals(THREADS * ITEMS_PER_THREAD, items.size());
+        final List<Integer> sorted = new ArrayList<>(items);
+        Collections.sort(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, sorted.get(i).intValue());
+        }
+    }
+}
@@ -18,12 +18,16 @@ package com.nesscomputing.callback;
 import static com.google.common.collect.ImmutableList.of;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import org.junit.Test;
@@ -150,4 +154,133 @@ public class TestExecutorBatchingCallback
             executor.shutdownNow();
         }
     }
+
+    @Test
+    public void testMaxInFlightBlocks() throws Exception
+    {
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final CallbackCollector<List<String>> collected = new CallbackCollector<>();
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                proceed.await();
+                collected.call(item);
+            }
+        };
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final ExecutorBatchingCallback<String> batcher = BatchingCallback.batchInto(1, executor, out, true, 1, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            final Thread producer = new Thread() {
+                @Override
+                public void run()
+                {
+                    try {
+                        Callbacks.stream(batcher, "a", "b", "c");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            producer.start();
+
+            // "a" is in flight, the producer waits to submit "b"
+            while (batcher.getBlockedCount() == 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(20);
+            assertEquals(1, batcher.getInFlight());
+
+            proceed.countDown();
+            producer.join();
+            batcher.commit();
+
+            assertEquals(of(of("a"), of("b"), of("c")), collected.getItems());
+            assertEquals(0, batcher.getInFlight());
+            assertEquals(0, batcher.getRefusedCount());
+            assertTrue(batcher.getBlockedTime(TimeUnit.MILLISECONDS) >= 20);
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMaxInFlightRefuses() throws Exception
+    {
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final CallbackCollector<List<String>> collected = new CallbackCollector<>();
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                proceed.await();
+                collected.call(item);
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final ExecutorBatchingCallback<String> batcher = BatchingCallback.batchInto(1, executor, out, false, 2, 10, TimeUnit.MILLISECONDS);
+            // a full batch is submitted by the next call
+            batcher.call("a");
+            batcher.call("b");
+            batcher.call("c");
+            final long start = System.nanoTime();
+            try {
+                // would submit "c" as the third batch
+                batcher.call("d");
+                fail();
+            } catch (CallbackRefusedException e) {
+            }
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10));
+            assertEquals(2, batcher.getInFlight());
+            assertEquals(1, batcher.getRefusedCount());
+            assertEquals(1, batcher.getBlockedCount());
+
+            proceed.countDown();
+            while (batcher.getInFlight() > 0) {
+                Thread.sleep(1);
+            }
+            assertTrue(batcher.commit());
+            // "c" stayed in the buffer, only "d" was refused
+            assertEquals(ImmutableSet.of(of("a"), of("b"), of("c")), ImmutableSet.copyOf(collected.getItems()));
+            assertEquals(0, batcher.getInFlight());
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMaxInFlightNoWait() throws Exception
+    {
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                proceed.await();
+            }
+        };
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final ExecutorBatchingCallback<String> batcher = BatchingCallback.batchInto(1, executor, out, false, 1, 0, TimeUnit.SECONDS);
+            batcher.call("a");
+            batcher.call("b");
+            try {
+                batcher.call("c");
+                fail();
+            } catch (CallbackRefusedException e) {
+            }
+            assertEquals(1, batcher.getRefusedCount());
+            proceed.countDown();
+            batcher.commit();
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import static com.google.common.collect.ImmutableList.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TestLingeringBatchingCallback
+{
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testLinger() throws Exception
+    {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final CallbackCollector<List<String>> collector = new CallbackCollector<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                super.call(item);
+                delivered.countDown();
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchInto(10, 50, TimeUnit.MILLISECONDS, scheduler, collector);
+        final long start = System.nanoTime();
+        batcher.call("a");
+        batcher.call("b");
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(of(of("a", "b")), collector.getItems());
+
+        batcher.call("c");
+        batcher.close();
+        assertEquals(of(of("a", "b"), of("c")), collector.getItems());
+    }
+
+    @Test
+    public void testFullBatches() throws Exception
+    {
+        final CallbackCollector<List<String>> collector = new CallbackCollector<>();
+        try (BatchingCallback<String> batcher = BatchingCallback.batchInto(2, 1, TimeUnit.HOURS, scheduler, collector)) {
+            batcher.call("a");
+            batcher.call("b");
+            batcher.call("c");
+            assertEquals(of(of("a", "b")), collector.getItems());
+        }
+        assertEquals(of(of("a", "b"), of("c")), collector.getItems());
+    }
+
+    @Test
+    public void testCloseCancelsTask() throws Exception
+    {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            final CallbackCollector<List<String>> collector = new CallbackCollector<>();
+            final BatchingCallback<String> batcher = BatchingCallback.batchInto(10, 1, TimeUnit.HOURS, executor, collector);
+            batcher.call("a");
+            assertEquals(1, executor.getQueue().size());
+
+            batcher.close();
+            assertEquals(of(of("a")), collector.getItems());
+            assertTrue(executor.getQueue().isEmpty());
+
+            // still usable, the next item arms a new task
+            batcher.call("b");
+            assertEquals(1, executor.getQueue().size());
+            batcher.close();
+            assertEquals(of(of("a"), of("b")), collector.getItems());
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentClose() throws Exception
+    {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        final CountDownLatch lateDelivered = new CountDownLatch(1);
+        final AtomicReference<BatchingCallback<String>> batcher = new AtomicReference<>();
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> batch) throws Exception
+            {
+                batches.add(batch);
+                if (batch.contains("b")) {
+                    lateDelivered.countDown();
+                }
+                else {
+                    // during the final flush of close(), another thread adds an item
+                    final Thread producer = new Thread() {
+                        @Override
+                        public void run()
+                        {
+                            try {
+                                batcher.get().call("b");
+                            } catch (CallbackRefusedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    };
+                    producer.start();
+                    producer.join();
+                }
+            }
+        };
+
+        batcher.set(BatchingCallback.batchInto(10, 50, TimeUnit.MILLISECONDS, scheduler, out));
+        batcher.get().call("a");
+        batcher.get().close();
+
+        // no further calls, the linger task of "b" has to flush it
+        assertTrue(lateDelivered.await(10, TimeUnit.SECONDS));
+        assertEquals(of(of("a"), of("b")), batches);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception
+    {
+        final int threads = 4;
+        final int itemsPerThread = 20000;
+        final AtomicInteger delivering = new AtomicInteger();
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+        final Callback<List<Integer>> out = new Callback<List<Integer>>() {
+            @Override
+            public void call(List<Integer> batch) throws Exception
+            {
+                assertEquals(1, delivering.incrementAndGet());
+                assertTrue(batch.size() <= 100);
+                items.addAll(batch);
+                delivering.decrementAndGet();
+            }
+        };
+
+        final BatchingCallback<Integer> batcher = BatchingCallback.batchInto(100, 100, TimeUnit.MICROSECONDS, scheduler, out);
+        final List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int first = t * itemsPerThread;
+            final Thread producer = new Thread() {
+                @Override
+                public void run()
+                {
+                    try {
+                        for (int i = first; i < first + itemsPerThread; i++) {
+                            batcher.call(i);
+                        }
+                    } catch (CallbackRefusedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        batcher.close();
+
+        assertEquals(threads * itemsPerThread, items.size());
+        final List<Integer> sorted = new ArrayList<>(items);
+        Collections.sort(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, sorted.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testLingerRefused() throws Exception
+    {
+        final CountDownLatch refused = new CountDownLatch(1);
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                refused.countDown();
+                throw new CallbackRefusedException();
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchInto(10, 1, TimeUnit.MILLISECONDS, scheduler, out);
+        batcher.call("a");
+        assertTrue(refused.await(10, TimeUnit.SECONDS));
+        // the flush task records the failure right after the delegate returns
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() { }
+        }).get();
+
+        try {
+            batcher.call("b");
+            fail();
+        } catch (CallbackRefusedException e) {
+        }
+        assertFalse(batcher.commit());
+    }
+
+    @Test
+    public void testLingerFailure() throws Exception
+    {
+        final IllegalStateException failure = new IllegalStateException("boom!");
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                throw failure;
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchInto(10, 1, TimeUnit.MILLISECONDS, scheduler, out);
+        batcher.call("a");
+        Thread.sleep(10);
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() { }
+        }).get();
+
+        try {
+            batcher.call("b");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(failure, e);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLinger()
+    {
+        BatchingCallback.batchInto(10, 0, TimeUnit.MILLISECONDS, scheduler, new CallbackCollector<List<String>>());
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import static com.google.common.collect.ImmutableList.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class TestPooledBatchingCallback
+{
+    @Test
+    public void testBatching() throws Exception
+    {
+        final List<List<String>> copies = new ArrayList<>();
+        final List<List<String>> batches = new ArrayList<>();
+        // a plain list callback, that does not keep the lists
+        final Callback<List<String>> out = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                copies.add(new ArrayList<>(item));
+                batches.add(item);
+            }
+        };
+
+        try (BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(2, out)) {
+            batcher.call("a");
+            batcher.call("b");
+            batcher.call("c");
+            batcher.commit();
+            batcher.commit();
+            batcher.call("d");
+            batcher.call("e");
+            batcher.call("f");
+        }
+
+        assertEquals(of(
+                of("a", "b"),
+                of("c"),
+                of("d", "e"),
+                of("f")
+            ), copies);
+        for (List<String> batch : batches) {
+            assertSame(batches.get(0), batch);
+        }
+    }
+
+    @Test
+    public void testRecycled() throws Exception
+    {
+        final List<PooledBatch<String>> batches = new ArrayList<>();
+        final Callback<PooledBatch<String>> out = new Callback<PooledBatch<String>>() {
+            @Override
+            public void call(PooledBatch<String> item) throws Exception
+            {
+                batches.add(item);
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(2, out);
+        batcher.call("a");
+        batcher.commit();
+        try {
+            batches.get(0).get(0);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        try {
+            batches.get(0).retain();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testRetain() throws Exception
+    {
+        final List<PooledBatch<String>> batches = new ArrayList<>();
+        final Callback<PooledBatch<String>> out = new Callback<PooledBatch<String>>() {
+            @Override
+            public void call(PooledBatch<String> item) throws Exception
+            {
+                if (batches.isEmpty()) {
+                    item.retain();
+                }
+                batches.add(item);
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(2, out);
+        batcher.call("a");
+        batcher.call("b");
+        batcher.call("c");
+        batcher.commit();
+
+        final PooledBatch<String> retained = batches.get(0);
+        assertNotSame(retained, batches.get(1));
+        assertEquals(of("a", "b"), retained);
+
+        retained.release();
+        try {
+            retained.release();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        batcher.call("d");
+        batcher.commit();
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    public void testReleaseBeforeReturn() throws Exception
+    {
+        final List<List<String>> copies = new ArrayList<>();
+        final List<PooledBatch<String>> batches = new ArrayList<>();
+        final Callback<PooledBatch<String>> out = new Callback<PooledBatch<String>>() {
+            @Override
+            public void call(PooledBatch<String> item) throws Exception
+            {
+                // the first batch is released before the callback returns, the second one is kept
+                if (batches.size() < 2) {
+                    item.retain();
+                }
+                copies.add(new ArrayList<>(item));
+                batches.add(item);
+                if (batches.size() == 1) {
+                    item.release();
+                }
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(2, out);
+        batcher.call("a");
+        batcher.call("b");
+        batcher.call("c");
+        batcher.call("d");
+        batcher.call("e");
+        batcher.call("f");
+        batcher.commit();
+
+        assertEquals(of(
+                of("a", "b"),
+                of("c", "d"),
+                of("e", "f")
+            ), copies);
+
+        // the early release must not put the batch into the pool twice
+        assertSame(batches.get(0), batches.get(1));
+        assertNotSame(batches.get(1), batches.get(2));
+        assertEquals(of("c", "d"), batches.get(1));
+        batches.get(1).release();
+    }
+
+    @Test
+    public void testReleasedBatchReusedByOtherProducer() throws Exception
+    {
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch secondDelivered = new CountDownLatch(1);
+        final CountDownLatch firstReturned = new CountDownLatch(1);
+        final AtomicReference<List<String>> secondItems = new AtomicReference<>();
+        final Callback<PooledBatch<String>> out = new Callback<PooledBatch<String>>() {
+            @Override
+            public void call(PooledBatch<String> item) throws Exception
+            {
+                if ("a".equals(item.get(0))) {
+                    // the batch goes back to the pool, and to the other producer, before this call returns
+                    item.retain();
+                    item.release();
+                    released.countDown();
+                    assertTrue(secondDelivered.await(10, TimeUnit.SECONDS));
+                }
+                else {
+                    secondDelivered.countDown();
+                    assertTrue(firstReturned.await(10, TimeUnit.SECONDS));
+                    secondItems.set(new ArrayList<>(item));
+                }
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(10, out);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread second = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    assertTrue(released.await(10, TimeUnit.SECONDS));
+                    batcher.call("b");
+                    batcher.commit();
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            }
+        };
+        second.start();
+
+        batcher.call("a");
+        batcher.commit();
+        firstReturned.countDown();
+        second.join();
+
+        assertEquals(null, failure.get());
+        assertEquals(of("b"), secondItems.get());
+    }
+
+    @Test
+    public void testReadOnly() throws Exception
+    {
+        final Callback<PooledBatch<String>> out = new Callback<PooledBatch<String>>() {
+            @Override
+            public void call(PooledBatch<String> item) throws Exception
+            {
+                item.add("x");
+            }
+        };
+
+        final BatchingCallback<String> batcher = BatchingCallback.batchIntoPooled(2, out);
+        batcher.call("a");
+        try {
+            batcher.commit();
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testCallbackRefused() throws Exception
+    {
+        final List<List<String>> items = new ArrayList<>();
+        final Callback<List<String>> callback = new Callback<List<String>>() {
+            @Override
+            public void call(List<String> item) throws Exception
+            {
+                if (items.size() > 1) {
+                    throw new CallbackRefusedException();
+                }
+                items.add(new ArrayList<>(item));
+            }
+        };
+
+        try (BatchingCallback<String> batcher = BatchingCallback.<String>batchIntoPooled(2, callback)) {
+            Callbacks.stream(batcher, "a", "b", "c", "d", "e", "f", "g");
+        }
+
+        assertEquals(of(
+                of("a", "b"),
+                of("c", "d")
+            ), items);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.callback;
+
+import static com.google.common.collect.ImmutableList.of;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestWeighingBatchingCallback
+{
+    private static final int MB = 1024 * 1024;
+
+    private static final Weigher<String> LENGTH = new Weigher<String>() {
+        @Override
+        public long weigh(String item)
+        {
+            return item.length();
+        }
+    };
+
+    @Test
+    public void testWeightLimit() throws Exception
+    {
+        final CallbackCollector<List<String>> collector = new CallbackCollector<>();
+        try (BatchingCallback<String> batcher = BatchingCallback.batchInto(100, 10, LENGTH, collector)) {
+            batcher.call("aaaa");
+            batcher.call("bbbb");
+            // would make 12, starts the next batch
+            batcher.call("cccc");
+            // heavier than the limit on its own
+            batcher.call("dddddddddddddddd");
+            batcher.call("ee");
+            // reaches the limit exactly, flushed right away
+            batcher.call("ffffffff");
+            assertEquals(of(of("aaaa", "bbbb"), of("cccc"), of("dddddddddddddddd"), of("ee", "ffffffff")), collector.getItems());
+            batcher.call("g");
+        }
+        assertEquals(of(of("aaaa", "bbbb"), of("cccc"), of("dddddddddddddddd"), of("ee", "ffffffff"), of("g")), collector.getItems());
+    }
+
+    @Test
+    public void testSizeLimit() throws Exception
+    {
+        final CallbackCollector<List<String>> collector = new CallbackCollector<>();
+        try (BatchingCallback<String> batcher = BatchingCallback.batchInto(2, 100, LENGTH, collector)) {
+            Callbacks.stream(batcher, "a", "b", "c", "", "", "d");
+        }
+        assertEquals(of(of("a", "b"), of("c", ""), of("", "d")), collector.getItems());
+    }
+
+    @Test
+    public void testByteWeighers() throws Exception
+    {
+        final List<Integer> batchBytes = new ArrayList<>();
+        final Callback<List<ByteBuffer>> out = new Callback<List<ByteBuffer>>() {
+            @Override
+            public void call(List<ByteBuffer> item) throws Exception
+            {
+                int bytes = 0;
+                for (ByteBuffer buffer : item) {
+                    bytes += buffer.remaining();
+                }
+                batchBytes.add(bytes);
+            }
+        };
+
+        final BatchingCallback<ByteBuffer> batcher = BatchingCallback.batchInto(1000, 2 * MB, Weighers.byteBufferRemaining(), out);
+        for (int i = 0; i < 5; i++) {
+            batcher.call(ByteBuffer.allocate(MB / 2 + 1));
+        }
+        assertEquals("WeighingBatchingCallback[buffered=1.0 MiB, maxWeight=2.0 MiB, batches=1, total=1.5 MiB, largestBatch=1.5 MiB]",
+                     batcher.toString());
+        batcher.close();
+        assertEquals(of(3 * (MB / 2 + 1), 2 * (MB / 2 + 1)), batchBytes);
+
+        assertEquals(3L, Weighers.byteArrayLength().weigh(new byte [3]));
+        assertEquals(1L, Weighers.singleton().weigh("abc"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() throws Exception
+    {
+        final BatchingCallback<String> batcher = BatchingCallback.batchInto(10, 10, new Weigher<String>() {
+            @Override
+            public long weigh(String item)
+            {
+                return -1;
+            }
+        }, new CallbackCollector<List<String>>());
+        batcher.call("a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWeightLimit()
+    {
+        BatchingCallback.batchInto(10, 0, LENGTH, new CallbackCollector<List<String>>());
+    }
+}
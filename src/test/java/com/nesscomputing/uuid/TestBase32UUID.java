@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBase32UUID
+{
+    private final UUID uuid = UUID.fromString("f81d4fae-7dec-11d0-a765-00a0c91e6bf6");
+
+    @Test
+    public void testKnownValues()
+    {
+        Assert.assertEquals("7R3N7TWZFC278AES80M34HWTZP", Base32UUID.toString(uuid));
+        Assert.assertEquals("00000000000000000000000000", Base32UUID.toString(new UUID(0, 0)));
+        Assert.assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", Base32UUID.toString(new UUID(-1, -1)));
+
+        Assert.assertEquals(uuid, Base32UUID.fromString("7R3N7TWZFC278AES80M34HWTZP"));
+        Assert.assertEquals(uuid, Base32UUID.fromString("7r3n7twzfc278aes80m34hwtzp"));
+        Assert.assertEquals(uuid, Base32UUID.fromString("7R3N7TWZFC278AES8OM34HWTZP"));
+        Assert.assertEquals(new UUID(0x0108421084210842L, 0x1084210842108430L),
+                Base32UUID.fromString("0iIlL" + "11111111111111111111" + "G"));
+    }
+
+    @Test
+    public void testOrdering()
+    {
+        Assert.assertTrue(Base32UUID.toString(new UUID(1, 0)).compareTo(Base32UUID.toString(new UUID(0, -1))) > 0);
+        Assert.assertTrue(Base32UUID.toString(new UUID(-1, 0)).compareTo(Base32UUID.toString(new UUID(1, 0))) > 0);
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        final char [] chars = new char [Base32UUID.LENGTH];
+        final byte [] bytes = new byte [Base32UUID.LENGTH];
+        final ByteBuffer direct = ByteBuffer.allocateDirect(Base32UUID.LENGTH);
+        for (int i = 0; i < 1000; i++) {
+            final UUID expected = UUID.randomUUID();
+            final String str = Base32UUID.toString(expected);
+            Assert.assertEquals(Base32UUID.LENGTH, str.length());
+            Assert.assertEquals(expected, Base32UUID.fromString(str));
+            Assert.assertTrue(Base32UUID.isValid(str));
+
+            Base32UUID.writeTo(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), chars, 0);
+            Assert.assertEquals(str, new String(chars));
+
+            Base32UUID.writeAscii(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), bytes, 0);
+            Assert.assertEquals(str, new String(bytes, StandardCharsets.US_ASCII));
+            Assert.assertEquals(expected, Base32UUID.fromBytes(bytes, 0));
+
+            direct.clear();
+            Base32UUID.writeAscii(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), direct);
+            Assert.assertEquals(Base32UUID.LENGTH, direct.position());
+            for (int j = 0; j < Base32UUID.LENGTH; j++) {
+                Assert.assertEquals(bytes[j], direct.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        for (String str : new String [] { "", "7R3N7TWZFC278AES80M34HWTZ", "7R3N7TWZFC278AES80M34HWTZPP", "8R3N7TWZFC278AES80M34HWTZP",
+                                          "7R3N7TWZFC278AES80M34HWTZU", "7R3N7TWZFC278AES80-34HWTZP", "7R3N7TWZFC278AES80M34HWTZ\u00e9" }) {
+            Assert.assertFalse(str, Base32UUID.isValid(str));
+            Assert.assertNull(str, Base32UUID.tryParse(str));
+            try {
+                Base32UUID.fromString(str);
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+        }
+        Assert.assertFalse(Base32UUID.isValid(null));
+        Assert.assertFalse(Base32UUID.tryParse("xx7R3N7TWZFC278AES80M34HWTZP", 3, new long [2], 0));
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBase64UUID
+{
+    private final UUID uuid = UUID.fromString("f81d4fae-7dec-11d0-a765-00a0c91e6bf6");
+
+    @Test
+    public void testKnownValues()
+    {
+        Assert.assertEquals("-B1Prn3sEdCnZQCgyR5r9g", Base64UUID.toString(uuid));
+        Assert.assertEquals("AAAAAAAAAAAAAAAAAAAAAA", Base64UUID.toString(new UUID(0, 0)));
+        Assert.assertEquals("_____________________w", Base64UUID.toString(new UUID(-1, -1)));
+
+        Assert.assertEquals(uuid, Base64UUID.fromString("-B1Prn3sEdCnZQCgyR5r9g"));
+        Assert.assertEquals(new UUID(-1, -1), Base64UUID.fromString("_____________________w"));
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        final char [] chars = new char [Base64UUID.LENGTH];
+        final byte [] bytes = new byte [Base64UUID.LENGTH];
+        final ByteBuffer direct = ByteBuffer.allocateDirect(Base64UUID.LENGTH);
+        for (int i = 0; i < 1000; i++) {
+            final UUID expected = UUID.randomUUID();
+            final String str = Base64UUID.toString(expected);
+            Assert.assertEquals(Base64UUID.LENGTH, str.length());
+            Assert.assertEquals(expected, Base64UUID.fromString(str));
+            Assert.assertTrue(Base64UUID.isValid(str));
+
+            Base64UUID.writeTo(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), chars, 0);
+            Assert.assertEquals(str, new String(chars));
+
+            Base64UUID.writeAscii(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), bytes, 0);
+            Assert.assertEquals(str, new String(bytes, StandardCharsets.US_ASCII));
+            Assert.assertEquals(expected, Base64UUID.fromBytes(bytes, 0));
+
+            direct.clear();
+            Base64UUID.writeAscii(expected.getMostSignificantBits(), expected.getLeastSignificantBits(), direct);
+            Assert.assertEquals(Base64UUID.LENGTH, direct.position());
+            for (int j = 0; j < Base64UUID.LENGTH; j++) {
+                Assert.assertEquals(bytes[j], direct.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        for (String str : new String [] { "", "-B1Prn3sEdCnZQCgyR5r9", "-B1Prn3sEdCnZQCgyR5r9gg", "-B1Prn3sEdCnZQCgyR5r9h",
+                                          "+B1Prn3sEdCnZQCgyR5r9g", "-B1Prn3sEdCnZQCgyR5r9=", "-B1Prn3sEdCn\u00e9QCgyR5r9g" }) {
+            Assert.assertFalse(str, Base64UUID.isValid(str));
+            Assert.assertNull(str, Base64UUID.tryParse(str));
+            try {
+                Base64UUID.fromString(str);
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+        }
+        Assert.assertFalse(Base64UUID.isValid(null));
+        Assert.assertFalse(Base64UUID.tryParse("xx-B1Prn3sEdCnZQCgyR5r9g", 3, new long [2], 0));
+    }
+}
@@ -66,4 +66,13 @@ public class TestHexConvert
             }
         }
     }
+
+    @Test
+    public void testAllChars()
+    {
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            final boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            Assert.assertEquals("char " + c, hex ? Character.digit(c, 16) : -1, NessUUID.nibble((char) c));
+        }
+    }
 }
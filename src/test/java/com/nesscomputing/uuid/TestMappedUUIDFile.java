@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nesscomputing.callback.CallbackRefusedException;
+
+public class TestMappedUUIDFile
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRandomAccess() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        final long [] msb = new long [1000];
+        final long [] lsb = new long [1000];
+        final Random random = new Random(1234);
+        for (int i = 0; i < msb.length; i++) {
+            msb[i] = random.nextLong();
+            lsb[i] = random.nextLong();
+        }
+        UUIDFile.write(path, msb, lsb);
+
+        // segments of 256 bytes, so records are spread over many of them
+        for (MappedUUIDFile file : new MappedUUIDFile [] { MappedUUIDFile.open(path), MappedUUIDFile.open(path, 8).load() }) {
+            Assert.assertEquals(1000, file.size());
+            Assert.assertFalse(file.isSorted());
+            for (int i = 0; i < msb.length; i++) {
+                Assert.assertEquals(msb[i], file.msb(i));
+                Assert.assertEquals(lsb[i], file.lsb(i));
+                Assert.assertEquals(new UUID(msb[i], lsb[i]), file.uuid(i));
+            }
+
+            final long [] msbOut = new long [12];
+            final long [] lsbOut = new long [12];
+            file.copyTo(990, msbOut, lsbOut, 2, 10);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(msb[990 + i], msbOut[2 + i]);
+                Assert.assertEquals(lsb[990 + i], lsbOut[2 + i]);
+            }
+        }
+    }
+
+    @Test
+    public void testSearch() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        final Random random = new Random(2345);
+        final long [] msb = new long [1000];
+        final long [] lsb = new long [1000];
+        for (int i = 0; i < msb.length; i++) {
+            msb[i] = random.nextLong();
+            lsb[i] = random.nextLong();
+        }
+        final SortedUUIDArray uuids = SortedUUIDArray.copyOf(msb, lsb);
+        UUIDFile.write(path, uuids);
+
+        final MappedUUIDFile file = MappedUUIDFile.open(path, 10);
+        Assert.assertTrue(file.isSorted());
+        for (int i = 0; i < uuids.size(); i++) {
+            Assert.assertEquals(i, file.indexOf(uuids.uuid(i)));
+            Assert.assertTrue(file.contains(uuids.msb(i), uuids.lsb(i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            final long m = random.nextLong();
+            final long l = random.nextLong();
+            Assert.assertEquals(uuids.indexOf(m, l), file.indexOf(m, l));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSearchUnsorted() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [] { 2L, 1L }, new long [2]);
+        MappedUUIDFile.open(path).contains(1L, 0L);
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [0], new long [0]);
+        final MappedUUIDFile file = MappedUUIDFile.open(path);
+        Assert.assertTrue(file.isEmpty());
+        Assert.assertTrue(file.isSorted());
+        Assert.assertEquals(-1, file.indexOf(UUID.randomUUID()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [1], new long [1]);
+        MappedUUIDFile.open(path).msb(1);
+    }
+
+    @Test
+    public void testStream() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [] { 1L, 2L, 3L, 4L }, new long [4]);
+        final long [] sum = new long [1];
+        Assert.assertEquals(2, MappedUUIDFile.open(path, 5).stream(new UUIDBitsCallback() {
+            @Override
+            public void call(long msb, long lsb) throws Exception
+            {
+                if (msb == 3L) {
+                    throw new CallbackRefusedException();
+                }
+                sum[0] += msb;
+            }
+        }));
+        Assert.assertEquals(3L, sum[0]);
+    }
+}
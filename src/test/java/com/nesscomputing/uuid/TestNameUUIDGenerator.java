@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestNameUUIDGenerator
+{
+    @Test
+    public void testKnownValues()
+    {
+        // RFC 9562, appendix A.2 and A.4
+        Assert.assertEquals(UUID.fromString("5df41881-3aed-3515-88a7-2f4a814cf09e"),
+                            NameUUIDGenerator.v3(NameUUIDGenerator.NAMESPACE_DNS).uuid("www.example.com"));
+        Assert.assertEquals(UUID.fromString("2ed6657d-e927-568b-95e1-2665a8aea6a2"),
+                            NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_DNS).uuid("www.example.com"));
+    }
+
+    @Test
+    public void testNoNamespace()
+    {
+        final byte [] name = "www.example.com".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(UUID.nameUUIDFromBytes(name), NameUUIDGenerator.v3().uuid(name));
+        Assert.assertEquals(UUID.nameUUIDFromBytes(new byte [0]), NameUUIDGenerator.v3().uuid(""));
+        Assert.assertNull(NameUUIDGenerator.v3().getNamespace());
+    }
+
+    @Test
+    public void testEncoding() throws Exception
+    {
+        final Random random = new Random(1234);
+        final NameUUIDGenerator generator = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_URL);
+        // long enough to be hashed in several chunks, with pairs split between chunks
+        for (int length : new int [] { 0, 1, 10, 1000, 5000 }) {
+            for (int i = 0; i < 20; i++) {
+                final StringBuilder name = new StringBuilder();
+                for (int j = 0; j < length; j++) {
+                    switch (random.nextInt(6)) {
+                    case 0:
+                        name.append((char) random.nextInt(0x800));
+                        break;
+                    case 1:
+                        name.append((char) random.nextInt(0x10000));
+                        break;
+                    case 2:
+                        name.appendCodePoint(0x10000 + random.nextInt(0x100000));
+                        break;
+                    default:
+                        name.append((char) random.nextInt(0x80));
+                    }
+                }
+                final String str = name.toString();
+                final UUID expected = reference("SHA-1", 5, NameUUIDGenerator.NAMESPACE_URL, str.getBytes(StandardCharsets.UTF_8));
+                Assert.assertEquals(expected, generator.uuid(str));
+                Assert.assertEquals(expected, generator.uuid(name));
+            }
+        }
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws Exception
+    {
+        final NameUUIDGenerator generator = NameUUIDGenerator.v3(NameUUIDGenerator.NAMESPACE_OID);
+        for (String name : new String [] { "\ud800", "a\udc00b", "\udc00\ud800", "\ud800\ud800\udc00" }) {
+            Assert.assertEquals(reference("MD5", 3, NameUUIDGenerator.NAMESPACE_OID, name.getBytes(StandardCharsets.UTF_8)), generator.uuid(name));
+        }
+    }
+
+    @Test
+    public void testBytesAndBuffers()
+    {
+        final NameUUIDGenerator generator = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_DNS);
+        final UUID expected = generator.uuid("www.example.com");
+        final byte [] bytes = "xxwww.example.comxx".getBytes(StandardCharsets.US_ASCII);
+
+        final long [] bits = new long [3];
+        generator.generate(bytes, 2, 15, bits, 1);
+        Assert.assertEquals(expected, new UUID(bits[1], bits[2]));
+
+        final ByteBuffer heap = ByteBuffer.wrap(bytes, 2, 15);
+        Assert.assertEquals(expected, generator.uuid(heap));
+        Assert.assertEquals(2, heap.position());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).position(2).limit(17);
+        Assert.assertEquals(expected, generator.uuid(direct));
+        Assert.assertEquals(2, direct.position());
+    }
+
+    @Test
+    public void testFill()
+    {
+        final NameUUIDGenerator generator = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_X500);
+        final String [] names = new String [100];
+        final byte [][] bytes = new byte [100][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "cn=user" + i;
+            bytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        final long [] msb = new long [101];
+        final long [] lsb = new long [101];
+        generator.fill(names, 1, 99, msb, lsb, 2);
+        for (int i = 1; i < 100; i++) {
+            Assert.assertEquals(generator.uuid(names[i]), new UUID(msb[i + 1], lsb[i + 1]));
+        }
+
+        generator.fill(bytes, 0, 100, msb, lsb, 0);
+        for (int i = 0; i < 100; i++) {
+            final UUID uuid = new UUID(msb[i], lsb[i]);
+            Assert.assertEquals(generator.uuid(names[i]), uuid);
+            Assert.assertEquals(5, uuid.version());
+            Assert.assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void testFailedCall()
+    {
+        final NameUUIDGenerator generator = NameUUIDGenerator.v5(NameUUIDGenerator.NAMESPACE_DNS);
+        final UUID expected = generator.uuid("www.example.com");
+        final long [] msb = new long [2];
+        final long [] lsb = new long [2];
+
+        try {
+            generator.generate(new byte [4], 2, 3, msb, 0);
+            Assert.fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+        }
+        Assert.assertEquals(expected, generator.uuid("www.example.com"));
+
+        try {
+            generator.fill(new String [] { "a", null }, 0, 2, msb, lsb, 0);
+            Assert.fail();
+        }
+        catch (NullPointerException e) {
+        }
+        Assert.assertEquals(expected, generator.uuid("www.example.com"));
+
+        try {
+            generator.fill(new String [] { "a", "b" }, 0, 2, msb, lsb, 1);
+            Assert.fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+        }
+        Assert.assertEquals(expected, generator.uuid("www.example.com"));
+
+        // a sequence that fails half way through hashing
+        final CharSequence broken = new CharSequence() {
+            @Override
+            public int length()
+            {
+                return 2000;
+            }
+
+            @Override
+            public char charAt(int index)
+            {
+                if (index > 1500) {
+                    throw new IllegalStateException();
+                }
+                return 'x';
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end)
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            generator.uuid(broken);
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+        }
+        Assert.assertEquals(expected, generator.uuid("www.example.com"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullNamespace()
+    {
+        NameUUIDGenerator.v5(null);
+    }
+
+    private static UUID reference(String algorithm, int version, UUID namespace, byte [] name) throws Exception
+    {
+        final MessageDigest digest = MessageDigest.getInstance(algorithm);
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(namespace.getMostSignificantBits()).putLong(namespace.getLeastSignificantBits());
+        digest.update(buffer.array());
+        final ByteBuffer hash = ByteBuffer.wrap(digest.digest(name));
+        final long msb = (hash.getLong() & ~0xf000L) | (version << 12);
+        final long lsb = (hash.getLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
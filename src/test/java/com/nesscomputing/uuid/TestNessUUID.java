@@ -15,7 +15,13 @@
  */
 package com.nesscomputing.uuid;
 
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -98,6 +104,355 @@ public class TestNessUUID {
         }
     }
 
+    @Test
+    public void testFromBytes()
+    {
+        for (String str : new String[] { uuid, caseSensitivity, overflow, zero, badLength, "0-0-0-0-0" }) {
+            final byte [] bytes = ("xx" + str + "yy").getBytes(StandardCharsets.US_ASCII);
+            Assert.assertEquals(NessUUID.fromString(str), NessUUID.fromBytes(bytes, 2, str.length()));
+        }
+    }
+
+    @Test
+    public void testFromBuffer()
+    {
+        final byte [] bytes = ("xx" + uuid).getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+
+        Assert.assertEquals(UUID.fromString(uuid), NessUUID.fromBuffer(ByteBuffer.wrap(bytes), 2));
+        Assert.assertEquals(UUID.fromString(uuid), NessUUID.fromBuffer(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), 2));
+        Assert.assertEquals(UUID.fromString(uuid), NessUUID.fromBuffer(direct, 2));
+        Assert.assertEquals(bytes.length, direct.position());
+    }
+
+    @Test
+    public void testFromBytesInvalid()
+    {
+        for (String str : new String[] { hyphen1, hyphen4, invalid1, invalid2, invalid6, "", "-0-0-0-0", "0-0-0-0-\u00e9" }) {
+            final byte [] bytes = str.getBytes(StandardCharsets.UTF_8);
+            try {
+                NessUUID.fromBytes(bytes, 0, bytes.length);
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            try {
+                NessUUID.fromBuffer(direct, 0, bytes.length);
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+        }
+
+        try {
+            NessUUID.fromBytes(new byte [10], 5, 6);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testFromCharSequence()
+    {
+        for (String str : new String[] { uuid, caseSensitivity, overflow, zero, badLength, "0-0-0-0-0" }) {
+            final String prefix = "GET /users/";
+            final String line = prefix + str + "/profile";
+            final int start = prefix.length();
+            final int end = start + str.length();
+            final UUID expected = NessUUID.fromString(str);
+
+            Assert.assertEquals(expected, NessUUID.fromCharSequence(line, start, end));
+            Assert.assertEquals(expected, NessUUID.fromCharSequence(new StringBuilder(line), start, end));
+            Assert.assertEquals(expected, NessUUID.fromCharSequence(CharBuffer.wrap(line), start, end));
+        }
+    }
+
+    @Test
+    public void testFromCharSequenceInvalid()
+    {
+        for (String str : new String[] { hyphen1, hyphen4, invalid1, invalid2, invalid6, "", "-0-0-0-0" }) {
+            try {
+                NessUUID.fromCharSequence(new StringBuilder(str), 0, str.length());
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+        }
+
+        try {
+            NessUUID.fromCharSequence(uuid, 1, uuid.length() + 1);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception
+    {
+        for (String str : new String[] { uuid, overflow.toLowerCase(), zero, "f81d4fae-7dec-11d0-a765-00a0c91e6bf6" }) {
+            final UUID value = UUID.fromString(str);
+
+            final char [] chars = new char [40];
+            Assert.assertEquals(38, NessUUID.writeTo(value, chars, 2));
+            Assert.assertEquals(str, new String(chars, 2, 36));
+
+            final byte [] bytes = new byte [40];
+            Assert.assertEquals(38, NessUUID.writeAscii(value, bytes, 2));
+            Assert.assertEquals(str, new String(bytes, 2, 36, StandardCharsets.US_ASCII));
+
+            for (ByteBuffer buffer : new ByteBuffer [] { ByteBuffer.allocate(40), ByteBuffer.allocateDirect(40) }) {
+                buffer.position(2);
+                NessUUID.writeAscii(value, buffer);
+                Assert.assertEquals(38, buffer.position());
+                Assert.assertEquals(value, NessUUID.fromBuffer(buffer, 2));
+            }
+
+            Assert.assertEquals("x" + str, NessUUID.appendTo(value, new StringBuilder("x")).toString());
+
+            final StringWriter writer = new StringWriter();
+            NessUUID.appendTo(value, (Appendable) writer);
+            Assert.assertEquals(str, writer.toString());
+        }
+    }
+
+    @Test
+    public void testWriteToOverflow()
+    {
+        try {
+            NessUUID.writeTo(UUID.randomUUID(), new char [40], 5);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // ok
+        }
+
+        try {
+            NessUUID.writeAscii(UUID.randomUUID(), ByteBuffer.allocateDirect(35));
+            Assert.fail();
+        } catch (BufferOverflowException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testParseBits()
+    {
+        final long [] bits = new long [6];
+        NessUUID.parse(uuid, bits, 1);
+        NessUUID.parse(new StringBuilder("x" + overflow), 1, overflow.length() + 1, bits, 3);
+        NessUUID.parse(caseSensitivity.getBytes(StandardCharsets.US_ASCII), 0, caseSensitivity.length(), bits, 4);
+
+        final UUID expected = UUID.fromString(uuid);
+        Assert.assertEquals(0L, bits[0]);
+        Assert.assertEquals(expected.getMostSignificantBits(), bits[1]);
+        Assert.assertEquals(expected.getLeastSignificantBits(), bits[2]);
+        Assert.assertEquals(-1L, bits[3]);
+        Assert.assertEquals(UUID.fromString(caseSensitivity).getMostSignificantBits(), bits[4]);
+        Assert.assertEquals(UUID.fromString(caseSensitivity).getLeastSignificantBits(), bits[5]);
+
+        try {
+            NessUUID.parse(invalid2, bits, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+
+        try {
+            NessUUID.parse(uuid, bits, 5);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testRandomToString() throws Exception
+    {
+        final char [] chars = new char [36];
+        final byte [] bytes = new byte [36];
+        for (int i = 0; i < 1000; i++) {
+            final UUID uuid = UUID.randomUUID();
+            final String expected = uuid.toString();
+
+            Assert.assertEquals(expected, NessUUID.toString(uuid));
+            Assert.assertEquals(expected.toUpperCase(), NessUUID.toUpperCaseString(uuid));
+
+            NessUUID.writeTo(uuid, chars, 0);
+            Assert.assertEquals(expected, new String(chars));
+            NessUUID.writeAscii(uuid, bytes, 0);
+            Assert.assertEquals(expected, new String(bytes, StandardCharsets.US_ASCII));
+            Assert.assertEquals(expected, NessUUID.appendTo(uuid, new StringBuilder()).toString());
+        }
+    }
+
+    @Test
+    public void testBulk()
+    {
+        final int n = 10000;
+        final UUID [] uuids = new UUID [n];
+        final String [] strings = new String [n];
+        for (int i = 0; i < n; i++) {
+            uuids[i] = UUID.randomUUID();
+            strings[i] = uuids[i].toString();
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int threshold : new int [] { 1, 7, 1000, n, NessUUID.DEFAULT_BULK_THRESHOLD }) {
+                final long [] msb = new long [n];
+                final long [] lsb = new long [n];
+                NessUUID.fromStrings(strings, msb, lsb, pool, threshold);
+
+                final String [] out = new String [n];
+                NessUUID.toStrings(msb, lsb, out, pool, threshold);
+
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(uuids[i], new UUID(msb[i], lsb[i]));
+                    Assert.assertEquals(strings[i], out[i]);
+                }
+            }
+
+            final long [] msb = new long [n];
+            final long [] lsb = new long [n];
+            NessUUID.fromStrings(strings, msb, lsb);
+            final String [] out = new String [n];
+            NessUUID.toStrings(msb, lsb, out);
+            Assert.assertArrayEquals(strings, out);
+
+            strings[n / 2] = invalid2;
+            try {
+                NessUUID.fromStrings(strings, msb, lsb, pool, 100);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // ok
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testIsValid()
+    {
+        for (String str : new String[] { uuid, caseSensitivity, overflow, zero, badLength, "0-0-0-0-0", "7fffffffffffffff-0-0-0-0" }) {
+            Assert.assertTrue(str, NessUUID.isValid(str));
+            Assert.assertTrue(str, NessUUID.isValid(new StringBuilder(str)));
+            Assert.assertEquals(NessUUID.fromString(str), NessUUID.tryParse(str));
+        }
+
+        for (String str : new String[] { hyphen1, hyphen2, hyphen3, hyphen4, invalid1, invalid2, invalid3, invalid4, invalid5, invalid6,
+                                         "", "-0-0-0-0", "0--0-0-0", "0-0-0-0-", "80000000000000000-0-0-0-0", "0-0-0-0-\u0130" }) {
+            Assert.assertFalse(str, NessUUID.isValid(str));
+            Assert.assertFalse(str, NessUUID.isValid(new StringBuilder(str)));
+            Assert.assertNull(str, NessUUID.tryParse(str));
+
+            final byte [] bytes = str.getBytes(StandardCharsets.UTF_8);
+            Assert.assertFalse(str, NessUUID.tryParse(bytes, 0, bytes.length, new long [2], 0));
+        }
+
+        Assert.assertFalse(NessUUID.isValid(null));
+        Assert.assertNull(NessUUID.tryParse(null));
+    }
+
+    @Test
+    public void testTryParseRange()
+    {
+        final long [] bits = new long [2];
+        final String line = "id=" + uuid + "&x=1";
+        Assert.assertTrue(NessUUID.tryParse(line, 3, 3 + uuid.length(), bits, 0));
+        Assert.assertEquals(UUID.fromString(uuid), new UUID(bits[0], bits[1]));
+        Assert.assertFalse(NessUUID.tryParse(line, 2, 3 + uuid.length(), bits, 0));
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(line.length());
+        direct.put(line.getBytes(StandardCharsets.US_ASCII));
+        Assert.assertTrue(NessUUID.tryParse(direct, 3, uuid.length(), bits, 0));
+        Assert.assertEquals(UUID.fromString(uuid), new UUID(bits[0], bits[1]));
+        Assert.assertFalse(NessUUID.tryParse(direct, 4, uuid.length(), bits, 0));
+    }
+
+    @Test
+    public void testExceptionCause()
+    {
+        try {
+            NessUUID.fromString(invalid3);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid UUID string: " + invalid3, e.getMessage());
+            Assert.assertEquals("g is not a valid character for an UUID string", e.getCause().getMessage());
+        }
+
+        try {
+            NessUUID.fromString(hyphen1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Not enough dashes (-)", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * For input with several problems, the first one is reported in the order the original parser found them:
+     * the number of dashes, then field by field whether it is empty, too long or has an invalid character.
+     */
+    @Test
+    public void testErrorOrder()
+    {
+        assertCause("Too many dashes (-)", "g-0-0-0-0-0");
+        assertCause("Not enough dashes (-)", "g-0-0-0");
+        assertCause("g is not a valid character for an UUID string", "g-0--0-0");
+        assertCause("g is not a valid character for an UUID string", "g-0-0-0-00000000000000000");
+        assertCause("Empty field", "-g-0-0-0");
+        assertCause("Empty field", "0-0--0-g");
+        assertCause("long overflow", "00000000000000000-0-g-0-0");
+        assertCause("x is not a valid character for an UUID string", "0-x-0-0-y");
+        assertCause("long overflow", "0-0-0-0-00000000000000000y");
+    }
+
+    private static void assertCause(String cause, String str)
+    {
+        for (CharSequence input : new CharSequence [] { str, new StringBuilder(str) }) {
+            try {
+                NessUUID.fromCharSequence(input, 0, input.length());
+                Assert.fail(str);
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals(str, cause, e.getCause().getMessage());
+            }
+        }
+        try {
+            NessUUID.fromBytes(str.getBytes(StandardCharsets.US_ASCII), 0, str.length());
+            Assert.fail(str);
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(str, cause, e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testCanonicalAndLenient()
+    {
+        // 36 characters, but not in the 8-4-4-4-12 layout: must still go through the lenient parser
+        final String shifted = "000000001-000-0000-0000-000000000000";
+        Assert.assertEquals(36, shifted.length());
+        Assert.assertEquals(UUID.fromString(shifted), NessUUID.fromString(shifted));
+
+        // canonical layout with bad characters in each field
+        for (String str : new String[] { invalid2, invalid3, invalid4, invalid5, invalid6, "00000000-0000-0000-0000-00000000000-" }) {
+            Assert.assertEquals(36, str.length());
+            Assert.assertNull(str, NessUUID.tryParse(str));
+            Assert.assertNull(str, NessUUID.tryParse(new StringBuilder(str)));
+            Assert.assertFalse(str, NessUUID.tryParse(str.getBytes(StandardCharsets.US_ASCII), 0, 36, new long [2], 0));
+        }
+
+        try {
+            NessUUID.fromString("00000000-0000-0000-0000-00000000000-");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Too many dashes (-)", e.getCause().getMessage());
+        }
+    }
+
     // makes testing multiple exceptions less verbose
     private void testEx(String str) {
         try {
@@ -282,13 +637,16 @@ public class TestNessUUID {
     @Test
     public void testDecode()
     {
-        doDecodeTest("-7fffffffffffffff-", 0x7fffffffffffffffL);
-        doDecodeTest("-8000000000000001-", 0x8000000000000001L);
+        // 16 digit fields keep their low bits, also with the top bit of the long set
+        doDecodeTest("7fffffffffffffff-0-0-0-7fffffffffffffff", 0xffffffff00000000L, 0x0000ffffffffffffL);
+        doDecodeTest("8000000000000001-0-0-8000000000000001-8000000000000001", 0x0000000100000000L, 0x0001000000000001L);
     }
 
-    private void doDecodeTest(String value, long expected)
+    private void doDecodeTest(String value, long expectedMsb, long expectedLsb)
     {
-        long result = NessUUID.decode(value, new int [] { value.indexOf('-'), value.lastIndexOf('-') }, 0);
-        Assert.assertEquals(expected, result);
+        final UUID result = NessUUID.tryParse(value);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(expectedMsb, result.getMostSignificantBits());
+        Assert.assertEquals(expectedLsb, result.getLeastSignificantBits());
     }
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRandomUUIDGenerator
+{
+    @Test
+    public void testVersion()
+    {
+        for (int i = 0; i < 1000; i++) {
+            final UUID uuid = RandomUUIDGenerator.nextUUID();
+            Assert.assertEquals(4, uuid.version());
+            Assert.assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void testFill()
+    {
+        final int n = 10000;
+        final long [] msb = new long [n + 2];
+        final long [] lsb = new long [n + 2];
+        RandomUUIDGenerator.fill(msb, lsb, 1, n);
+
+        Assert.assertEquals(0L, msb[0]);
+        Assert.assertEquals(0L, lsb[n + 1]);
+
+        final Set<UUID> seen = new HashSet<>();
+        for (int i = 1; i <= n; i++) {
+            final UUID uuid = new UUID(msb[i], lsb[i]);
+            Assert.assertEquals(4, uuid.version());
+            Assert.assertEquals(2, uuid.variant());
+            Assert.assertTrue(seen.add(uuid));
+        }
+    }
+
+    @Test
+    public void testNext()
+    {
+        final long [] bits = new long [3];
+        RandomUUIDGenerator.next(bits, 1);
+        Assert.assertEquals(0L, bits[0]);
+        Assert.assertEquals(4, new UUID(bits[1], bits[2]).version());
+    }
+
+    @Test
+    public void testXoshiro256()
+    {
+        // reference implementation, seeded with 1, 2, 3, 4
+        final Xoshiro256 random = new Xoshiro256(1, 2, 3, 4);
+        Assert.assertEquals(11520L, random.nextLong());
+        Assert.assertEquals(0L, random.nextLong());
+        Assert.assertEquals(1509978240L, random.nextLong());
+    }
+
+    @Test
+    public void testThreadsSeededApart() throws Exception
+    {
+        final AtomicReference<UUID> other = new AtomicReference<>();
+        final Thread thread = new Thread() {
+            @Override
+            public void run()
+            {
+                other.set(RandomUUIDGenerator.nextUUID());
+            }
+        };
+        thread.start();
+        final UUID uuid = RandomUUIDGenerator.nextUUID();
+        thread.join();
+        Assert.assertNotNull(other.get());
+        Assert.assertFalse(uuid.equals(other.get()));
+    }
+}
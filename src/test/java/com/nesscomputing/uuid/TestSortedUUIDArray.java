@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSortedUUIDArray
+{
+    @Test
+    public void testEmpty()
+    {
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(new long [0], new long [0]);
+        Assert.assertTrue(array.isEmpty());
+        Assert.assertSame(SortedUUIDArray.of(), array);
+        Assert.assertEquals(-1, array.indexOf(UUID.randomUUID()));
+        Assert.assertEquals(0, array.ceilingIndex(0L, 0L));
+        Assert.assertTrue(array.timeRangeV7(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testCopyOf()
+    {
+        final List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+        uuids.addAll(uuids.subList(0, 100));
+        final TreeSet<UUID> expected = new TreeSet<>(UUIDArrays.UNSIGNED_ORDER);
+        expected.addAll(uuids);
+
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(uuids);
+        Assert.assertEquals(1000, array.size());
+        int i = 0;
+        for (UUID uuid : expected) {
+            Assert.assertEquals(uuid, array.uuid(i));
+            Assert.assertEquals(uuid.getMostSignificantBits(), array.msb(i));
+            Assert.assertEquals(uuid.getLeastSignificantBits(), array.lsb(i));
+            Assert.assertEquals(i, array.indexOf(uuid));
+            Assert.assertTrue(array.contains(uuid));
+            i++;
+        }
+
+        final UUIDSet set = new UUIDSet();
+        for (UUID uuid : uuids) {
+            set.add(uuid);
+        }
+        final SortedUUIDArray fromSet = SortedUUIDArray.copyOf(set);
+        final long [] msb = new long [1000];
+        final long [] lsb = new long [1000];
+        fromSet.copyTo(msb, lsb, 0);
+        Assert.assertEquals(fromSet.size(), array.size());
+        for (int j = 0; j < 1000; j++) {
+            Assert.assertEquals(array.uuid(j), new UUID(msb[j], lsb[j]));
+        }
+    }
+
+    @Test
+    public void testCopyDoesNotShareArrays()
+    {
+        final long [] msb = { 3L, 1L, 2L };
+        final long [] lsb = { 0L, 0L, 0L };
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(msb, lsb);
+        msb[0] = 0L;
+        Assert.assertEquals(3L, array.msb(2));
+        Assert.assertEquals(3L, msb[1] + msb[2]);
+
+        final SortedUUIDArray part = SortedUUIDArray.copyOf(new long [] { 9L, 8L, 7L, 6L }, new long [4], 1, 2);
+        Assert.assertEquals(2, part.size());
+        Assert.assertEquals(7L, part.msb(0));
+        Assert.assertEquals(8L, part.msb(1));
+    }
+
+    @Test
+    public void testRanges()
+    {
+        final long [] msb = new long [100];
+        final long [] lsb = new long [100];
+        for (int i = 0; i < 100; i++) {
+            // 0, 2, 4, ... in the least significant bits, crossing into the "negative" half of the most significant bits
+            msb[i] = i < 50 ? 0x7fffffffffffffffL : 0x8000000000000000L;
+            lsb[i] = 2 * i;
+        }
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(msb, lsb);
+        Assert.assertEquals(0x7fffffffffffffffL, array.msb(0));
+        Assert.assertEquals(0x8000000000000000L, array.msb(99));
+
+        Assert.assertEquals(10, array.ceilingIndex(0x7fffffffffffffffL, 19L));
+        Assert.assertEquals(10, array.ceilingIndex(0x7fffffffffffffffL, 20L));
+        Assert.assertEquals(100, array.ceilingIndex(-1L, 0L));
+        Assert.assertEquals(-11, array.indexOf(0x7fffffffffffffffL, 19L));
+
+        final SortedUUIDArray range = array.range(0x7fffffffffffffffL, 90L, 0x8000000000000000L, 110L);
+        Assert.assertEquals(10, range.size());
+        Assert.assertEquals(90L, range.lsb(0));
+        Assert.assertEquals(108L, range.lsb(9));
+        Assert.assertEquals(0, range.indexOf(0x7fffffffffffffffL, 90L));
+        Assert.assertEquals(-1, range.indexOf(0x7fffffffffffffffL, 88L));
+        Assert.assertEquals(-11, range.indexOf(0x8000000000000000L, 110L));
+        Assert.assertFalse(range.contains(0x8000000000000000L, 110L));
+
+        final SortedUUIDArray sub = range.subArray(2, 4);
+        Assert.assertEquals(2, sub.size());
+        Assert.assertEquals(94L, sub.lsb(0));
+        Assert.assertSame(range, range.subArray(0, 10));
+
+        Assert.assertTrue(array.range(0x8000000000000000L, 0L, 0x7fffffffffffffffL, 0L).isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds()
+    {
+        SortedUUIDArray.copyOf(new long [] { 1L, 2L, 3L }, new long [3]).subArray(1, 2).msb(1);
+    }
+
+    @Test
+    public void testTimeRangeV7()
+    {
+        final long [] msb = new long [1000];
+        final long [] lsb = new long [1000];
+        final UUIDv7Generator.State state = new UUIDv7Generator.State();
+        final Xoshiro256 random = new Xoshiro256(1, 2, 3, 4);
+        final long [] bits = new long [2];
+        for (int i = 0; i < 1000; i++) {
+            UUIDv7Generator.next(state, 1000000L + i / 10, random, bits, 0);
+            msb[i] = bits[0];
+            lsb[i] = bits[1];
+        }
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(msb, lsb);
+
+        final SortedUUIDArray range = array.timeRangeV7(1000010L, 1000020L);
+        Assert.assertEquals(100, range.size());
+        Assert.assertEquals(1000010L, UUIDv7Generator.getTimestamp(range.msb(0)));
+        Assert.assertEquals(1000019L, UUIDv7Generator.getTimestamp(range.msb(99)));
+
+        Assert.assertEquals(1000, array.timeRangeV7(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        Assert.assertTrue(array.timeRangeV7(1000020L, 1000010L).isEmpty());
+        Assert.assertTrue(array.timeRangeV7(2000000L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testTimeRangeV1()
+    {
+        // version 1 UUIDs from 2012-07-06, the time in 100 ns steps since 1582-10-15 is 0x1e1c7b5 6f32f693
+        final List<UUID> uuids = Arrays.asList(
+            UUID.fromString("6f32f693-c7b5-11e1-afa7-88af2abc9a66"),
+            UUID.fromString("6f32f694-c7b5-11e1-afa7-88af2abc9a66"),
+            UUID.fromString("00000000-c7b6-11e1-afa7-88af2abc9a66"),
+            UUID.fromString("6f32f693-c7b5-41e1-afa7-88af2abc9a66"));
+        final SortedUUIDArray array = SortedUUIDArray.copyOf(uuids);
+
+        final long millis = (uuids.get(0).timestamp() - 0x01b21dd213814000L) / 10000;
+        int [] indexes = array.timeRangeV1(millis, millis + 1);
+        Assert.assertEquals(2, indexes.length);
+        Assert.assertEquals(uuids.get(0), array.uuid(indexes[0]));
+        Assert.assertEquals(uuids.get(1), array.uuid(indexes[1]));
+
+        indexes = array.timeRangeV1(Long.MIN_VALUE, Long.MAX_VALUE);
+        Assert.assertEquals(3, indexes.length);
+        Assert.assertEquals(0, array.timeRangeV1(millis + 1, millis + 2).length);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.net.URL;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestStringFactory
+{
+    @Test
+    public void testUuidString()
+    {
+        final Random random = new Random(1234);
+        for (int i = 0; i < 1000; i++) {
+            final UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            Assert.assertEquals(uuid.toString(), NessUUID.toString(uuid));
+            Assert.assertEquals(uuid.toString().toUpperCase(), NessUUID.toUpperCaseString(uuid));
+        }
+    }
+
+    /**
+     * The multi-release profile runs this against the jar on a JDK 9+ runtime, where the class
+     * from META-INF/versions/9 must be picked.
+     */
+    @Test
+    public void testVersionedClass()
+    {
+        Assume.assumeTrue(Boolean.getBoolean("ness.multiRelease"));
+        Assume.assumeFalse(System.getProperty("java.specification.version").startsWith("1."));
+
+        final URL url = StringFactory.class.getResource("StringFactory.class");
+        Assert.assertTrue(url.toString(), url.toString().contains("META-INF/versions/9/"));
+        Assert.assertEquals("6ba7b810-9dad-11d1-80b4-00c04fd430c8", NessUUID.toString(NameUUIDGenerator.NAMESPACE_DNS));
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDArrays
+{
+    @Test
+    public void testUnsignedOrder()
+    {
+        final UUID low = UUID.fromString("00000000-0000-0000-ffff-ffffffffffff");
+        final UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        Assert.assertTrue(low.compareTo(high) > 0);
+        Assert.assertTrue(UUIDArrays.compare(low, high) < 0);
+        Assert.assertTrue(UUIDArrays.UNSIGNED_ORDER.compare(high, low) > 0);
+        Assert.assertEquals(0, UUIDArrays.compare(high, new UUID(high.getMostSignificantBits(), high.getLeastSignificantBits())));
+
+        Assert.assertTrue(UUIDArrays.compare(0L, 0x7fffffffffffffffL, 0L, 0x8000000000000000L) < 0);
+        Assert.assertTrue(UUIDArrays.compare(0L, -1L, 1L, 0L) < 0);
+    }
+
+    @Test
+    public void testSort()
+    {
+        final Random random = new Random(1234);
+        for (int length : new int [] { 0, 1, 2, 63, 64, 65, 1000, 20000 }) {
+            checkSort(random, length, false);
+            checkSort(random, length, true);
+        }
+    }
+
+    @Test
+    public void testSortEqual()
+    {
+        final long [] msb = new long [1000];
+        final long [] lsb = new long [1000];
+        Arrays.fill(msb, 42L);
+        Arrays.fill(lsb, -42L);
+        lsb[500] = -43L;
+        UUIDArrays.sort(msb, lsb);
+        Assert.assertEquals(-43L, lsb[0]);
+
+        lsb[0] = -42L;
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            UUIDArrays.sort(msb, lsb, 0, 1000, pool, 100);
+        }
+        finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(42L, msb[i]);
+            Assert.assertEquals(-42L, lsb[i]);
+        }
+    }
+
+    @Test
+    public void testSortRange()
+    {
+        final Random random = new Random(2345);
+        final long [] msb = randomLongs(random, 1000, false);
+        final long [] lsb = randomLongs(random, 1000, false);
+        final long [] msbCopy = msb.clone();
+        final long [] lsbCopy = lsb.clone();
+
+        UUIDArrays.sort(msb, lsb, 100, 900);
+
+        assertSorted(msb, lsb, 100, 900);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(msbCopy[i], msb[i]);
+            Assert.assertEquals(lsbCopy[999 - i], lsb[999 - i]);
+        }
+        Assert.assertEquals(sortedUUIDs(msbCopy, lsbCopy, 100, 900), sortedUUIDs(msb, lsb, 100, 900));
+    }
+
+    @Test
+    public void testParallelSort()
+    {
+        final Random random = new Random(3456);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int length : new int [] { 999, 1000, 1001, 25000 }) {
+                final long [] msb = randomLongs(random, length, true);
+                final long [] lsb = randomLongs(random, length, false);
+                final long [] msbCopy = msb.clone();
+                final long [] lsbCopy = lsb.clone();
+
+                UUIDArrays.sort(msb, lsb, 0, length, pool, 1000);
+
+                assertSorted(msb, lsb, 0, length);
+                Assert.assertEquals(sortedUUIDs(msbCopy, lsbCopy, 0, length), sortedUUIDs(msb, lsb, 0, length));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSearch()
+    {
+        final Random random = new Random(4567);
+        for (int length : new int [] { 0, 1, 2, 10, 1000 }) {
+            for (boolean clustered : new boolean [] { false, true }) {
+                final long [] msb = randomLongs(random, length, clustered);
+                final long [] lsb = randomLongs(random, length, clustered);
+                UUIDArrays.sort(msb, lsb);
+
+                for (int i = 0; i < length; i++) {
+                    // with duplicates, any of the equal UUIDs may be found
+                    int index = UUIDArrays.binarySearch(msb, lsb, msb[i], lsb[i]);
+                    Assert.assertEquals(msb[i], msb[index]);
+                    Assert.assertEquals(lsb[i], lsb[index]);
+                    index = UUIDArrays.interpolationSearch(msb, lsb, msb[i], lsb[i]);
+                    Assert.assertEquals(msb[i], msb[index]);
+                    Assert.assertEquals(lsb[i], lsb[index]);
+                }
+
+                for (int i = 0; i < 1000; i++) {
+                    final long keyMsb = randomLongs(random, 1, clustered)[0];
+                    final long keyLsb = randomLongs(random, 1, clustered)[0];
+                    final int expected = binarySearch(msb, lsb, keyMsb, keyLsb);
+                    if (expected < 0) {
+                        Assert.assertEquals(expected, UUIDArrays.binarySearch(msb, lsb, keyMsb, keyLsb));
+                        Assert.assertEquals(expected, UUIDArrays.interpolationSearch(msb, lsb, keyMsb, keyLsb));
+                    }
+                    else {
+                        Assert.assertTrue(UUIDArrays.binarySearch(msb, lsb, keyMsb, keyLsb) >= 0);
+                        Assert.assertTrue(UUIDArrays.interpolationSearch(msb, lsb, keyMsb, keyLsb) >= 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSearchExtremes()
+    {
+        final long [] msb = { 0L, 0L, 0x7fffffffffffffffL, 0x8000000000000000L, -1L, -1L };
+        final long [] lsb = { 0L, -1L, 5L, 0L, 0L, -1L };
+        for (int i = 0; i < msb.length; i++) {
+            Assert.assertEquals(i, UUIDArrays.binarySearch(msb, lsb, msb[i], lsb[i]));
+            Assert.assertEquals(i, UUIDArrays.interpolationSearch(msb, lsb, msb[i], lsb[i]));
+        }
+        Assert.assertEquals(-3, UUIDArrays.interpolationSearch(msb, lsb, 1L, 0L));
+        Assert.assertEquals(-4, UUIDArrays.interpolationSearch(msb, lsb, 0x7fffffffffffffffL, 6L));
+        Assert.assertEquals(-6, UUIDArrays.interpolationSearch(msb, lsb, -1L, 1L));
+        Assert.assertEquals(-3, UUIDArrays.interpolationSearch(msb, lsb, 0, 2, 1L, 0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch()
+    {
+        UUIDArrays.sort(new long [2], new long [3]);
+    }
+
+    private static void checkSort(Random random, int length, boolean clustered)
+    {
+        final long [] msb = randomLongs(random, length, clustered);
+        final long [] lsb = randomLongs(random, length, clustered);
+        final long [] msbCopy = msb.clone();
+        final long [] lsbCopy = lsb.clone();
+
+        UUIDArrays.sort(msb, lsb);
+
+        assertSorted(msb, lsb, 0, length);
+        Assert.assertEquals(sortedUUIDs(msbCopy, lsbCopy, 0, length), sortedUUIDs(msb, lsb, 0, length));
+    }
+
+    /** Clustered values share most of their bytes and have many duplicates. */
+    private static long [] randomLongs(Random random, int length, boolean clustered)
+    {
+        final long [] values = new long [length];
+        for (int i = 0; i < length; i++) {
+            values[i] = clustered ? 0x0123456789000000L | random.nextInt(4) << 20 | random.nextInt(3) : random.nextLong();
+        }
+        return values;
+    }
+
+    private static void assertSorted(long [] msb, long [] lsb, int fromIndex, int toIndex)
+    {
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            Assert.assertTrue(UUIDArrays.compare(msb[i - 1], lsb[i - 1], msb[i], lsb[i]) <= 0);
+        }
+    }
+
+    private static List<UUID> sortedUUIDs(long [] msb, long [] lsb, int fromIndex, int toIndex)
+    {
+        final UUID [] uuids = new UUID [toIndex - fromIndex];
+        for (int i = fromIndex; i < toIndex; i++) {
+            uuids[i - fromIndex] = new UUID(msb[i], lsb[i]);
+        }
+        Arrays.sort(uuids, UUIDArrays.UNSIGNED_ORDER);
+        return Arrays.asList(uuids);
+    }
+
+    private static int binarySearch(long [] msb, long [] lsb, long keyMsb, long keyLsb)
+    {
+        final UUID [] uuids = sortedUUIDs(msb, lsb, 0, msb.length).toArray(new UUID [0]);
+        return Arrays.binarySearch(uuids, new UUID(keyMsb, keyLsb), UUIDArrays.UNSIGNED_ORDER);
+    }
+}
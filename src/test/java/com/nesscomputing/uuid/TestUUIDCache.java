@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDCache
+{
+    private static final String TEXT = "f81d4fae-7dec-11d0-a765-00a0c91e6bf6";
+
+    @Test
+    public void testSharedInstance()
+    {
+        final UUIDCache cache = new UUIDCache(16);
+        final UUID uuid = cache.fromString(TEXT);
+        Assert.assertEquals(UUID.fromString(TEXT), uuid);
+
+        Assert.assertSame(uuid, cache.fromString(new String(TEXT)));
+        Assert.assertSame(uuid, cache.fromCharSequence(new StringBuilder("<" + TEXT + ">"), 1, 37));
+        Assert.assertSame(uuid, cache.fromBytes(("<" + TEXT + ">").getBytes(StandardCharsets.US_ASCII), 1, 36));
+        Assert.assertSame(uuid, cache.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        Assert.assertSame(uuid, cache.intern(UUID.fromString(TEXT)));
+
+        Assert.assertEquals(1, cache.missCount());
+        Assert.assertEquals(5, cache.hitCount());
+    }
+
+    @Test
+    public void testNonCanonicalSpelling()
+    {
+        final UUIDCache cache = new UUIDCache(16);
+        final UUID uuid = cache.fromString(TEXT);
+        Assert.assertSame(uuid, cache.fromString(TEXT.toUpperCase(Locale.ENGLISH)));
+        Assert.assertSame(uuid, cache.fromString("f81d4fae-7dec-11d0-a765-a0c91e6bf6"));
+        Assert.assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void testToString()
+    {
+        final UUIDCache cache = new UUIDCache(16);
+        final UUID uuid = UUID.randomUUID();
+        final String str = cache.toString(uuid);
+        Assert.assertEquals(uuid.toString(), str);
+        Assert.assertSame(str, cache.toString(new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())));
+
+        // the UUID passed in became the shared instance
+        Assert.assertSame(uuid, cache.fromString(uuid.toString()));
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        final UUIDCache cache = new UUIDCache(16);
+        try {
+            cache.fromString("not-a-uuid");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(0, cache.missCount());
+        }
+        try {
+            cache.fromBytes(new byte [10], 5, 10);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBounded()
+    {
+        final UUIDCache cache = new UUIDCache(100);
+        Assert.assertEquals(128, cache.capacity());
+
+        final int n = 10000;
+        for (int i = 0; i < n; i++) {
+            final UUID uuid = UUID.randomUUID();
+            Assert.assertEquals(uuid, cache.fromString(uuid.toString()));
+        }
+        Assert.assertEquals(n, cache.missCount());
+        // both tables hold at most 128 entries, everything else was evicted from both
+        Assert.assertTrue(cache.evictionCount() >= 2 * (n - cache.capacity()));
+    }
+
+    @Test
+    public void testHotSetSurvives()
+    {
+        final UUIDCache cache = new UUIDCache(1024);
+        final String [] hot = new String [16];
+        for (int i = 0; i < hot.length; i++) {
+            hot[i] = UUID.randomUUID().toString();
+            cache.fromString(hot[i]);
+        }
+
+        // every hot UUID is used again between cold ones, so CLOCK keeps almost all of them.
+        // A hot entry can still lose if several cold ones land in its set in a short time.
+        final int n = 100000;
+        long hotMisses = 0;
+        for (int i = 0; i < n; i++) {
+            cache.fromString(UUID.randomUUID().toString());
+            final long misses = cache.missCount();
+            cache.fromString(hot[i % hot.length]);
+            hotMisses += cache.missCount() - misses;
+        }
+        Assert.assertTrue("hot misses: " + hotMisses, hotMisses < n / 1000);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception
+    {
+        final UUIDCache cache = new UUIDCache(64);
+        final String [] strings = new String [256];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = UUID.randomUUID().toString();
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?> [] futures = new Future<?> [4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call()
+                    {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < 100000; i++) {
+                            final String str = strings[random.nextInt(strings.length)];
+                            Assert.assertEquals(str, cache.fromString(str).toString());
+                            Assert.assertEquals(str, cache.toString(UUID.fromString(str)));
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(800000, cache.hitCount() + cache.missCount());
+    }
+}
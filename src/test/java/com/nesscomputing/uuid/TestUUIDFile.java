@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nesscomputing.callback.Callback;
+import com.nesscomputing.callback.CallbackRefusedException;
+import com.nesscomputing.callback.Callbacks;
+
+public class TestUUIDFile
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        // more than one buffer full
+        final long [] msb = new long [10000];
+        final long [] lsb = new long [10000];
+        final Random random = new Random(1234);
+        for (int i = 0; i < msb.length; i++) {
+            msb[i] = random.nextLong();
+            lsb[i] = random.nextLong();
+        }
+        UUIDFile.write(path, msb, lsb);
+        Assert.assertEquals(UUIDFile.HEADER_SIZE + 10000 * UUIDFile.RECORD_SIZE, Files.size(path));
+
+        final List<UUID> uuids = new ArrayList<>();
+        Assert.assertEquals(10000, UUIDFile.stream(path, new Callback<UUID>() {
+            @Override
+            public void call(UUID uuid)
+            {
+                uuids.add(uuid);
+            }
+        }));
+        for (int i = 0; i < msb.length; i++) {
+            Assert.assertEquals(new UUID(msb[i], lsb[i]), uuids.get(i));
+        }
+
+        final int [] index = new int [1];
+        Assert.assertEquals(10000, UUIDFile.stream(path, new UUIDBitsCallback() {
+            @Override
+            public void call(long m, long l)
+            {
+                Assert.assertEquals(msb[index[0]], m);
+                Assert.assertEquals(lsb[index[0]], l);
+                index[0]++;
+            }
+        }));
+        Assert.assertEquals(10000, index[0]);
+    }
+
+    @Test
+    public void testBigEndianRecords() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        final UUID uuid = UUID.fromString("6f32f693-c7b5-11e1-afa7-88af2abc9a66");
+        try (UUIDFileWriter writer = UUIDFileWriter.create(path)) {
+            writer.write(uuid);
+        }
+
+        final byte [] bytes = Files.readAllBytes(path);
+        Assert.assertEquals(32, bytes.length);
+        Assert.assertEquals('N', bytes[0]);
+        Assert.assertEquals('D', bytes[3]);
+        Assert.assertEquals(UUIDFile.VERSION, bytes[4]);
+        Assert.assertEquals(UUIDFile.FLAG_SORTED, bytes[5]);
+        Assert.assertEquals(1L, ByteBuffer.wrap(bytes).getLong(8));
+        Assert.assertEquals((byte) 0x6f, bytes[16]);
+        Assert.assertEquals((byte) 0xe1, bytes[23]);
+        Assert.assertEquals((byte) 0xaf, bytes[24]);
+        Assert.assertEquals((byte) 0x66, bytes[31]);
+    }
+
+    @Test
+    public void testSortedFlag() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        try (UUIDFileWriter writer = UUIDFileWriter.create(path)) {
+            writer.write(1L, 0L);
+            writer.write(1L, 0L);
+            writer.write(-1L, 0L);
+            Assert.assertTrue(writer.isSorted());
+            writer.write(2L, 0L);
+            Assert.assertFalse(writer.isSorted());
+            Assert.assertEquals(4, writer.getCount());
+        }
+        Assert.assertEquals(0, Files.readAllBytes(path)[5]);
+
+        UUIDFile.write(path, SortedUUIDArray.copyOf(new long [] { 3L, 1L, -2L }, new long [3]));
+        Assert.assertTrue(MappedUUIDFile.open(path).isSorted());
+        Assert.assertEquals(3, MappedUUIDFile.open(path).size());
+    }
+
+    @Test
+    public void testRefused() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [] { 1L, 2L, 3L }, new long [] { 4L, 5L, 6L });
+
+        final List<Long> seen = new ArrayList<>();
+        final long accepted = UUIDFile.stream(path, new UUIDBitsCallback() {
+            @Override
+            public void call(long msb, long lsb) throws Exception
+            {
+                if (msb == 3L) {
+                    throw new CallbackRefusedException();
+                }
+                seen.add(msb);
+            }
+        });
+        Assert.assertEquals(2, accepted);
+        Assert.assertEquals(2, seen.size());
+    }
+
+    @Test
+    public void testStreamFromChannel() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        UUIDFile.write(path, new long [] { 1L, 2L }, new long [] { 3L, 4L });
+
+        final long [] sum = new long [1];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Assert.assertEquals(2, UUIDFile.stream(Channels.newChannel(Channels.newInputStream(channel)), new UUIDBitsCallback() {
+                @Override
+                public void call(long msb, long lsb)
+                {
+                    sum[0] += msb * lsb;
+                }
+            }));
+        }
+        Assert.assertEquals(11L, sum[0]);
+    }
+
+    @Test
+    public void testIncompleteFile() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        final UUIDFileWriter writer = UUIDFileWriter.create(path);
+        writer.write(new long [5000], new long [5000], 0, 5000);
+        // not closed, the header still says -1
+        try {
+            UUIDFile.stream(path, Callbacks.<UUID>noop());
+            Assert.fail();
+        }
+        catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("incomplete"));
+        }
+        writer.close();
+        Assert.assertEquals(5000, UUIDFile.stream(path, Callbacks.<UUID>noop()));
+    }
+
+    @Test
+    public void testWriterNeverClosed() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        final UUIDFileWriter writer = UUIDFileWriter.create(path);
+        try {
+            // less than one buffer full, so only the header is on the disk
+            writer.write(1L, 2L);
+            Assert.assertEquals(UUIDFile.HEADER_SIZE, Files.size(path));
+
+            try {
+                UUIDFile.stream(path, Callbacks.<UUID>noop());
+                Assert.fail();
+            }
+            catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("incomplete"));
+            }
+            try {
+                MappedUUIDFile.open(path);
+                Assert.fail();
+            }
+            catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("incomplete"));
+            }
+            try {
+                UUIDFile.stream(Channels.newChannel(new ByteArrayInputStream(Files.readAllBytes(path))), new UUIDBitsCallback() {
+                    @Override
+                    public void call(long msb, long lsb)
+                    {
+                        Assert.fail();
+                    }
+                });
+                Assert.fail();
+            }
+            catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("incomplete"));
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedChannel() throws Exception
+    {
+        final ByteBuffer bytes = UUIDFile.newHeader(2, false);
+        final byte [] truncated = new byte [UUIDFile.HEADER_SIZE + 20];
+        bytes.get(truncated, 0, UUIDFile.HEADER_SIZE);
+        UUIDFile.stream(Channels.newChannel(new ByteArrayInputStream(truncated)), new UUIDBitsCallback() {
+            @Override
+            public void call(long msb, long lsb)
+            {
+            }
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnUUIDFile() throws Exception
+    {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, "6f32f693-c7b5-11e1-afa7-88af2abc9a66\n".getBytes("US-ASCII"));
+        MappedUUIDFile.open(path);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDLongMap
+{
+    @Test
+    public void testPutGetRemove()
+    {
+        final UUIDLongMap map = new UUIDLongMap(0, -1L);
+        final UUID uuid = UUID.randomUUID();
+        Assert.assertEquals(-1L, map.get(uuid));
+        Assert.assertFalse(map.containsKey(uuid));
+
+        Assert.assertEquals(-1L, map.put(uuid, 17L));
+        Assert.assertEquals(17L, map.put(uuid, 42L));
+        Assert.assertEquals(42L, map.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        Assert.assertTrue(map.containsKey(uuid));
+
+        Assert.assertEquals(42L, map.remove(uuid));
+        Assert.assertEquals(-1L, map.remove(uuid));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testAddTo()
+    {
+        final UUIDLongMap map = new UUIDLongMap();
+        final UUID uuid = UUID.randomUUID();
+        Assert.assertEquals(1L, map.addTo(uuid, 1L));
+        Assert.assertEquals(3L, map.addTo(uuid, 2L));
+        Assert.assertEquals(5L, map.addTo(0L, 0L, 5L));
+        Assert.assertEquals(5L, map.get(0L, 0L));
+        Assert.assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testRandomOperations()
+    {
+        final Random random = new Random(4321);
+        final UUIDLongMap map = new UUIDLongMap(0, Long.MIN_VALUE);
+        final Map<UUID, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 200000; i++) {
+            final UUID uuid = new UUID(random.nextInt(4), random.nextInt(5000));
+            final long value = random.nextLong();
+            switch (random.nextInt(3)) {
+            case 0:
+                Assert.assertEquals(unbox(expected.put(uuid, value)), map.put(uuid, value));
+                break;
+            case 1:
+                Assert.assertEquals(unbox(expected.remove(uuid)), map.remove(uuid));
+                break;
+            default:
+                Assert.assertEquals(unbox(expected.get(uuid)), map.get(uuid));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+
+        final Map<UUID, Long> seen = new HashMap<>();
+        final UUIDLongMap.Cursor cursor = map.cursor();
+        while (cursor.next()) {
+            Assert.assertNull(seen.put(cursor.uuid(), cursor.value()));
+            cursor.setValue(cursor.value() + 1);
+        }
+        Assert.assertEquals(expected, seen);
+
+        for (Map.Entry<UUID, Long> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue() + 1, map.get(entry.getKey()));
+        }
+    }
+
+    private static long unbox(Long value)
+    {
+        return value == null ? Long.MIN_VALUE : value;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDObjectMap
+{
+    @Test
+    public void testPutGetRemove()
+    {
+        final UUIDObjectMap<String> map = new UUIDObjectMap<>();
+        final UUID uuid = UUID.randomUUID();
+        Assert.assertNull(map.get(uuid));
+
+        Assert.assertNull(map.put(uuid, "a"));
+        Assert.assertEquals("a", map.put(uuid, "b"));
+        Assert.assertEquals("b", map.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        Assert.assertTrue(map.containsKey(uuid));
+
+        Assert.assertNull(map.put(0L, 0L, "nil"));
+        Assert.assertEquals("nil", map.get(0L, 0L));
+        Assert.assertEquals(2, map.size());
+
+        Assert.assertEquals("b", map.remove(uuid));
+        Assert.assertNull(map.remove(uuid));
+        Assert.assertEquals("nil", map.remove(0L, 0L));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullValue()
+    {
+        new UUIDObjectMap<String>().put(UUID.randomUUID(), null);
+    }
+
+    @Test
+    public void testRandomOperations()
+    {
+        final Random random = new Random(5678);
+        final UUIDObjectMap<Integer> map = new UUIDObjectMap<>();
+        final Map<UUID, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200000; i++) {
+            final UUID uuid = new UUID(random.nextInt(4), random.nextInt(5000));
+            final Integer value = random.nextInt();
+            switch (random.nextInt(3)) {
+            case 0:
+                Assert.assertEquals(expected.put(uuid, value), map.put(uuid, value));
+                break;
+            case 1:
+                Assert.assertEquals(expected.remove(uuid), map.remove(uuid));
+                break;
+            default:
+                Assert.assertEquals(expected.get(uuid), map.get(uuid));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+
+        final Map<UUID, Integer> seen = new HashMap<>();
+        final UUIDObjectMap.Cursor<Integer> cursor = map.cursor();
+        while (cursor.next()) {
+            Assert.assertNull(seen.put(cursor.uuid(), cursor.value()));
+        }
+        Assert.assertEquals(expected, seen);
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.cursor().next());
+    }
+}
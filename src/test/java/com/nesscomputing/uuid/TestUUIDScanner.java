@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nesscomputing.callback.CallbackRefusedException;
+
+public class TestUUIDScanner
+{
+    private static final String A = "6f32f693-c7b5-11e1-afa7-88af2abc9a66";
+    private static final String B = "00000000-0000-4000-8000-000000000001";
+
+    @Test
+    public void testScan() throws Exception
+    {
+        final String text = "id=" + A + ", parent=" + B + "\n" + A.toUpperCase() + "-" + B;
+        final Matches expected = new Matches();
+        expected.expect(3, A);
+        expected.expect(48, B);
+        expected.expect(85, A);
+        expected.expect(122, B);
+
+        assertScan(expected, text);
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        assertScan(new Matches(), "");
+        assertScan(new Matches(), "no uuids here");
+        assertScan(new Matches(), A.substring(1));
+    }
+
+    @Test
+    public void testWholeInput() throws Exception
+    {
+        final Matches expected = new Matches();
+        expected.expect(0, A);
+        assertScan(expected, A);
+    }
+
+    @Test
+    public void testBoundaries() throws Exception
+    {
+        // a longer run of hex digits is not an UUID
+        assertScan(new Matches(), "0" + A);
+        assertScan(new Matches(), A + "f");
+        assertScan(new Matches(), "6f32f693-c7b5-11e1-afa7-88af2abc9a6g");
+        assertScan(new Matches(), "6f32f693-c7b5-11e1-afa7_88af2abc9a66");
+        assertScan(new Matches(), "6f32f693-c7b511e1-afa7-88af2abc9a66-");
+
+        final Matches expected = new Matches();
+        expected.expect(3, A);
+        assertScan(expected, "xx-" + A + "-xx");
+
+        // the second candidate starts at "c7b5", but is followed by a hex digit
+        final Matches second = new Matches();
+        second.expect(14, A);
+        assertScan(second, "6f32f693-c7b5-" + A);
+    }
+
+    @Test
+    public void testRandom() throws Exception
+    {
+        final Random random = new Random(1234);
+        final String noise = "0123456789abcdef-- \n,=xyz";
+        final StringBuilder text = new StringBuilder();
+        final Matches expected = new Matches();
+        for (int i = 0; i < 2000; i++) {
+            final int length = random.nextInt(80);
+            text.append(' ');
+            for (int j = 0; j < length; j++) {
+                text.append(noise.charAt(random.nextInt(noise.length())));
+            }
+            text.append(' ');
+            final UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            expected.expect(text.length(), uuid);
+            text.append(uuid);
+        }
+
+        assertScan(expected, text.toString());
+    }
+
+    @Test
+    public void testChannelChunks() throws Exception
+    {
+        final StringBuilder text = new StringBuilder();
+        final Matches expected = new Matches();
+        final Random random = new Random(2345);
+        while (text.length() < 3 << 20) {
+            text.append(" x");
+            final UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            expected.expect(text.length(), uuid);
+            text.append(uuid);
+        }
+        final byte [] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+
+        final Matches actual = new Matches();
+        Assert.assertEquals(expected.size(), UUIDScanner.scan(Channels.newChannel(new TrickleInputStream(bytes, 1000)), actual));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testRange() throws Exception
+    {
+        final String text = "0" + A + "0";
+        final Matches expected = new Matches();
+        expected.expect(1, A);
+
+        final Matches chars = new Matches();
+        UUIDScanner.scan(text, 1, 37, chars);
+        Assert.assertEquals(expected, chars);
+
+        final Matches bytes = new Matches();
+        UUIDScanner.scan(text.getBytes(StandardCharsets.US_ASCII), 1, 36, bytes);
+        Assert.assertEquals(expected, bytes);
+
+        // offsets are relative to the slice, not the array behind it
+        final ByteBuffer buffer = ByteBuffer.wrap(("00" + text).getBytes(StandardCharsets.US_ASCII), 1, 39).slice();
+        buffer.position(2).limit(38);
+        final Matches slice = new Matches();
+        UUIDScanner.scan(buffer, slice);
+        final Matches expectedSlice = new Matches();
+        expectedSlice.expect(2, A);
+        Assert.assertEquals(expectedSlice, slice);
+        Assert.assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void testRefused() throws Exception
+    {
+        final String text = A + " " + B + " " + A;
+        final List<Long> offsets = new ArrayList<>();
+        final UUIDScanner.MatchCallback callback = new UUIDScanner.MatchCallback() {
+            @Override
+            public void call(long offset, long msb, long lsb) throws Exception
+            {
+                if (offsets.size() == 2) {
+                    throw new CallbackRefusedException();
+                }
+                offsets.add(offset);
+            }
+        };
+
+        Assert.assertEquals(2, UUIDScanner.scan(text, callback));
+        offsets.clear();
+        final ByteBuffer direct = ByteBuffer.allocateDirect(text.length());
+        direct.put(text.getBytes(StandardCharsets.US_ASCII)).flip();
+        Assert.assertEquals(2, UUIDScanner.scan(direct, callback));
+        offsets.clear();
+        Assert.assertEquals(2, UUIDScanner.scan(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))), callback));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() throws Exception
+    {
+        UUIDScanner.scan(new byte [10], 5, 6, new Matches());
+    }
+
+    /** Checks all the ways to scan some text. */
+    private static void assertScan(Matches expected, String text) throws Exception
+    {
+        final byte [] bytes = text.getBytes(StandardCharsets.US_ASCII);
+
+        final Matches chars = new Matches();
+        Assert.assertEquals(expected.size(), UUIDScanner.scan(text, chars));
+        Assert.assertEquals(expected, chars);
+
+        final Matches array = new Matches();
+        Assert.assertEquals(expected.size(), UUIDScanner.scan(bytes, 0, bytes.length, array));
+        Assert.assertEquals(expected, array);
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        final Matches buffer = new Matches();
+        Assert.assertEquals(expected.size(), UUIDScanner.scan(direct, buffer));
+        Assert.assertEquals(expected, buffer);
+
+        final Matches channel = new Matches();
+        Assert.assertEquals(expected.size(), UUIDScanner.scan(Channels.newChannel(new ByteArrayInputStream(bytes)), channel));
+        Assert.assertEquals(expected, channel);
+    }
+
+    private static class Matches extends ArrayList<String> implements UUIDScanner.MatchCallback
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void call(long offset, long msb, long lsb)
+        {
+            add(offset + ":" + new UUID(msb, lsb));
+        }
+
+        void expect(long offset, String uuid)
+        {
+            add(offset + ":" + UUID.fromString(uuid));
+        }
+
+        void expect(long offset, UUID uuid)
+        {
+            add(offset + ":" + uuid);
+        }
+    }
+
+    /** Returns at most a few bytes per read, so that UUIDs are split between reads. */
+    private static class TrickleInputStream extends InputStream
+    {
+        private final byte [] bytes;
+        private final int maxRead;
+        private int pos;
+
+        TrickleInputStream(byte [] bytes, int maxRead)
+        {
+            this.bytes = bytes;
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read()
+        {
+            return pos < bytes.length ? bytes[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte [] b, int off, int len) throws IOException
+        {
+            if (pos == bytes.length) {
+                return -1;
+            }
+            final int n = Math.min(Math.min(len, maxRead), bytes.length - pos);
+            System.arraycopy(bytes, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDSet
+{
+    @Test
+    public void testAddContainsRemove()
+    {
+        final UUIDSet set = new UUIDSet();
+        final UUID uuid = UUID.randomUUID();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(uuid));
+
+        Assert.assertTrue(set.add(uuid));
+        Assert.assertFalse(set.add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        Assert.assertTrue(set.contains(uuid));
+        Assert.assertEquals(1, set.size());
+
+        Assert.assertTrue(set.remove(uuid));
+        Assert.assertFalse(set.remove(uuid));
+        Assert.assertFalse(set.contains(uuid));
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testNilUUID()
+    {
+        final UUIDSet set = new UUIDSet();
+        Assert.assertFalse(set.contains(0L, 0L));
+        Assert.assertTrue(set.add(0L, 0L));
+        Assert.assertTrue(set.contains(0L, 0L));
+        Assert.assertFalse(set.contains(0L, 1L));
+        Assert.assertEquals(1, set.size());
+
+        final UUIDSet.Cursor cursor = set.cursor();
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(new UUID(0L, 0L), cursor.uuid());
+        Assert.assertFalse(cursor.next());
+        Assert.assertFalse(cursor.next());
+
+        Assert.assertTrue(set.remove(0L, 0L));
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations()
+    {
+        // few distinct keys with sequential bits, so there are many collisions and removals
+        final Random random = new Random(1234);
+        final UUIDSet set = new UUIDSet();
+        final Set<UUID> expected = new HashSet<>();
+
+        for (int i = 0; i < 200000; i++) {
+            final UUID uuid = new UUID(random.nextInt(4), random.nextInt(5000));
+            switch (random.nextInt(3)) {
+            case 0:
+                Assert.assertEquals(expected.add(uuid), set.add(uuid));
+                break;
+            case 1:
+                Assert.assertEquals(expected.remove(uuid), set.remove(uuid));
+                break;
+            default:
+                Assert.assertEquals(expected.contains(uuid), set.contains(uuid));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+
+        for (UUID uuid : expected) {
+            Assert.assertTrue(set.contains(uuid));
+        }
+
+        final Set<UUID> seen = new HashSet<>();
+        final UUIDSet.Cursor cursor = set.cursor();
+        while (cursor.next()) {
+            Assert.assertTrue(seen.add(new UUID(cursor.msb(), cursor.lsb())));
+        }
+        Assert.assertEquals(expected, seen);
+    }
+
+    @Test
+    public void testGrowAndClear()
+    {
+        final UUIDSet set = new UUIDSet(10);
+        final UUID [] uuids = new UUID [100000];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            Assert.assertTrue(set.add(uuids[i]));
+        }
+        Assert.assertEquals(uuids.length, set.size());
+        for (UUID uuid : uuids) {
+            Assert.assertTrue(set.contains(uuid));
+        }
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(uuids[0]));
+        Assert.assertFalse(set.cursor().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize()
+    {
+        new UUIDSet(-1);
+    }
+}
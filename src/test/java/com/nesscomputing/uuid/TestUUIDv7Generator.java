@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2013 Ness Computing, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nesscomputing.uuid;
+
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUUIDv7Generator
+{
+    @Test
+    public void testLayout()
+    {
+        final long before = System.currentTimeMillis();
+        final UUID uuid = UUIDv7Generator.nextUUID();
+        final long after = System.currentTimeMillis();
+
+        Assert.assertEquals(7, uuid.version());
+        Assert.assertEquals(2, uuid.variant());
+
+        // may run ahead of the clock by a few ms at most
+        final long timestamp = UUIDv7Generator.getTimestamp(uuid);
+        Assert.assertTrue(timestamp >= before);
+        Assert.assertTrue(timestamp <= after + 1);
+    }
+
+    @Test
+    public void testMonotonic()
+    {
+        final int n = 100000;
+        final long [] msb = new long [n];
+        final long [] lsb = new long [n];
+        UUIDv7Generator.fill(msb, lsb, 0, n);
+
+        for (int i = 1; i < n; i++) {
+            Assert.assertTrue((msb[i - 1] ^ Long.MIN_VALUE) < (msb[i] ^ Long.MIN_VALUE));
+            Assert.assertEquals(7, new UUID(msb[i], lsb[i]).version());
+            Assert.assertEquals(2, new UUID(msb[i], lsb[i]).variant());
+        }
+    }
+
+    @Test
+    public void testSameMillisecond()
+    {
+        final UUIDv7Generator.State state = new UUIDv7Generator.State();
+        final Xoshiro256 random = new Xoshiro256(1, 2, 3, 4);
+        final long [] bits = new long [2];
+        final long now = 1000000L;
+
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < 10000; i++) {
+            UUIDv7Generator.next(state, now, random, bits, 0);
+            Assert.assertTrue(bits[0] > last);
+            last = bits[0];
+        }
+
+        // more than 4096 per millisecond, so the timestamp must have run ahead
+        Assert.assertTrue(UUIDv7Generator.getTimestamp(last) > now);
+    }
+
+    @Test
+    public void testClockGoesBackwards()
+    {
+        final UUIDv7Generator.State state = new UUIDv7Generator.State();
+        final Xoshiro256 random = new Xoshiro256(1, 2, 3, 4);
+        final long [] bits = new long [2];
+
+        UUIDv7Generator.next(state, 2000000L, random, bits, 0);
+        final long first = bits[0];
+        UUIDv7Generator.next(state, 1000000L, random, bits, 0);
+
+        Assert.assertTrue(bits[0] > first);
+        Assert.assertEquals(2000000L, UUIDv7Generator.getTimestamp(bits[0]));
+    }
+}